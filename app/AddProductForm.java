@@ -1,6 +1,7 @@
 package com.lude.app;
 
-import com.lude.app.BackEnd.BackEnd;
+import com.lude.app.Middleware.MiddlewareAsync;
+import com.lude.app.Middleware.ProductCache;
 import javafx.application.Application;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -14,9 +15,7 @@ import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
 import javafx.util.Duration;
 import javafx.animation.FadeTransition;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.SQLException;
+import javafx.animation.PauseTransition;
 
 public class AddProductForm extends Application {
 
@@ -193,7 +192,7 @@ public class AddProductForm extends Application {
         Button saveButton = new Button("✓ Save Product");
         styleActionButton(saveButton, GREEN);
 
-        saveButton.setOnAction(e -> saveProduct(stage));
+        saveButton.setOnAction(e -> saveProduct(stage, saveButton));
         cancelButton.setOnAction(e -> stage.close());
 
         buttonBox.getChildren().addAll(cancelButton, saveButton);
@@ -370,7 +369,7 @@ public class AddProductForm extends Application {
         );
     }
 
-    private void saveProduct(Stage stage) {
+    private void saveProduct(Stage stage, Button saveButton) {
         try {
             if (idField.getText().isEmpty() || nameField.getText().isEmpty() ||
                     descriptionArea.getText().isEmpty() || priceField.getText().isEmpty() ||
@@ -395,33 +394,38 @@ public class AddProductForm extends Application {
                 return;
             }
 
-            // Save to database
-            boolean success = saveProductToDatabase(id, name, description, price, stock);
-
-            if (success) {
-                // Create new product
-                AdminDashboard.Product newProduct = new AdminDashboard.Product(id, name, description, price, stock);
-
-                // Show success message
-                showSuccessMessage();
+            // Save to database (off the FX thread; the button stays disabled until it answers)
+            saveButton.setDisable(true);
+            MiddlewareAsync.saveProduct(id, name, description, price, stock).whenCompleteAsync((success, error) -> {
+                if (error != null) {
+                    saveButton.setDisable(false);
+                    showValidationError(MiddlewareAsync.isTimeout(error)
+                            ? "The server took too long to respond. Please try again."
+                            : "Could not reach the server: " + MiddlewareAsync.rootCause(error).getMessage());
+                } else if (success) {
+                    // Drop any cached row for this id before anyone reads it again
+                    ProductCache.shared().invalidate(id);
+
+                    // Create new product
+                    AdminDashboard.Product newProduct = new AdminDashboard.Product(id, name, description, price, stock);
+
+                    // Show success message
+                    showSuccessMessage();
+
+                    // Call callback if exists
+                    if (callback != null) {
+                        callback.onProductAdded(newProduct);
+                    }
 
-                // Call callback if exists
-                if (callback != null) {
-                    callback.onProductAdded(newProduct);
+                    // Close form after a brief delay to show success message
+                    PauseTransition delay = new PauseTransition(Duration.millis(800));
+                    delay.setOnFinished(done -> stage.close());
+                    delay.play();
+                } else {
+                    saveButton.setDisable(false);
+                    showValidationError("Failed to save product to database.");
                 }
-
-                // Close form after a brief delay to show success message
-                new Thread(() -> {
-                    try {
-                        Thread.sleep(800);
-                        javafx.application.Platform.runLater(() -> stage.close());
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                }).start();
-            } else {
-                showValidationError("Failed to save product to database.");
-            }
+            }, MiddlewareAsync.FX_THREAD);
         } catch (NumberFormatException e) {
             showValidationError("Please enter valid numbers for ID, Price, and Stock.");
         }
@@ -521,29 +525,6 @@ public class AddProductForm extends Application {
         descriptionArea.setAccessibleText("Product description field");
     }
 
-    private boolean saveProductToDatabase(int id, String name, String description, double price, int stock) {
-        Connection conn = null;
-        PreparedStatement pstmt = null;
-        try {
-            conn = BackEnd.getConnection();
-            String sql = "INSERT INTO products (id, name, description, price, stock) VALUES (?, ?, ?, ?, ?)";
-            pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, id);
-            pstmt.setString(2, name);
-            pstmt.setString(3, description);
-            pstmt.setDouble(4, price);
-            pstmt.setInt(5, stock);
-
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
-        } catch (SQLException e) {
-            System.err.println("Error saving product: " + e.getMessage());
-            return false;
-        } finally {
-            BackEnd.closeResources(conn, pstmt, null);
-        }
-    }
-
     public static void main(String[] args) {
         launch(args);
     }
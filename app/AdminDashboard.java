@@ -1,11 +1,26 @@
 package com.lude.app;
 
+import com.lude.app.Catalog.CatalogMigrator;
+import com.lude.app.Catalog.ProductSearchIndex;
+import com.lude.app.Catalog.ProductStoreList;
+import com.lude.app.Catalog.VersionedCatalog;
+import com.lude.app.Metrics.LatencyHistogram;
+import com.lude.app.Metrics.MetricsRegistry;
+import com.lude.app.Metrics.MetricsReporter;
+import com.lude.app.Middleware.BulkProductImporter;
+import com.lude.app.Middleware.Middleware;
+import com.lude.app.Middleware.MiddlewareAsync;
+import com.lude.app.Middleware.ProductCache;
+import com.lude.app.Pricing.Money;
+import com.lude.app.Pricing.MoneyFormat;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.event.ActionEvent;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -15,22 +30,40 @@ import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 import java.io.*;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class AdminDashboard extends Application {
 
-    // Product list
-    private final ObservableList<Product> products = FXCollections.observableArrayList();
+    // Product list, kept in a ProductStore; only products on screen get objects
+    private final ProductStoreList products = new ProductStoreList();
+    // Kept in sync with products through a list listener
+    private final ProductSearchIndex searchIndex = ProductSearchIndex.bindTo(products);
     private static final String PRODUCT_FILE = "products.dat";
-    private FlowPane productContainer;
+    // products.dat plus its change log; every add/edit/delete/import is committed through it
+    private VersionedCatalog catalog;
+    private static final LatencyHistogram REFRESH_LATENCY = MetricsRegistry.histogram("ui.refresh.admin");
+    private VirtualProductGrid productContainer;
+    private SearchExecutor searchExecutor;
 
     @Override
     public void start(Stage primaryStage) {
         primaryStage.setTitle("Nep Shop - Admin Dashboard");
+        MetricsReporter.start();
 
         // Load products from file
         loadProducts();
@@ -41,29 +74,23 @@ public class AdminDashboard extends Application {
         // Create a sidebar
         VBox sidebar = createSidebar();
 
-        // Create a scroll pane for product cards
-        ScrollPane scrollPane = new ScrollPane();
-        scrollPane.setFitToWidth(true);
-        scrollPane.setStyle("-fx-background-color: #f5f5f5;");
-
-        // Create a container for product cards
-        productContainer = new FlowPane();
+        // Virtualized grid for product cards: only the rows in view have live cards
+        productContainer = new VirtualProductGrid(this::createProductCard, this::updateProductCard, 250, 20);
         productContainer.setPadding(new Insets(20));
-        productContainer.setHgap(20);
-        productContainer.setVgap(20);
         productContainer.setStyle("-fx-background-color: #f5f5f5;");
 
         // Display product cards
         refreshProductDisplay();
 
-        scrollPane.setContent(productContainer);
+        // Search runs on a background thread (no debounce: it is triggered by Enter or the button)
+        searchExecutor = new SearchExecutor(searchIndex, 0, results -> productContainer.setProducts(results));
 
         // Create buttons with modern styling
         HBox buttonBox = createButtonBar();
 
         // Create layout with a modern theme
         BorderPane contentArea = new BorderPane();
-        contentArea.setCenter(scrollPane);
+        contentArea.setCenter(productContainer);
         contentArea.setBottom(buttonBox);
 
         // Main layout
@@ -81,7 +108,10 @@ public class AdminDashboard extends Application {
         makeResponsive(scene, sidebar, mainLayout);
 
         // Save products when application closes
-        primaryStage.setOnCloseRequest(e -> saveProducts());
+        primaryStage.setOnCloseRequest(e -> {
+            saveProducts();
+            searchExecutor.close();
+        });
     }
 
     private BorderPane createTopBar(Stage primaryStage) {
@@ -120,6 +150,8 @@ public class AdminDashboard extends Application {
         Button logoutButton = new Button("Logout");
         logoutButton.setStyle("-fx-background-color: #e74c3c; -fx-text-fill: white; -fx-padding: 5px 15px; -fx-background-radius: 5px; -fx-cursor: hand;");
         logoutButton.setOnAction(e -> {
+            Middleware.logout();
+
             // Close the current window
             primaryStage.close();
 
@@ -260,8 +292,23 @@ public class AdminDashboard extends Application {
             try {
                 AddProductForm addForm = new AddProductForm();
                 addForm.setOnProductAdded(product -> {
-                    products.add(product);
-                    saveProducts();
+                    try {
+                        VersionedCatalog.Result result = requireCatalog().insert(product);
+                        if (result.isApplied()) {
+                            // The list holds each id once; it may still show a copy someone else deleted
+                            int index = products.indexOf(product);
+                            if (index >= 0) {
+                                products.set(index, product);
+                            } else {
+                                products.add(product);
+                            }
+                        } else {
+                            showAlert("Product Exists", "Product #" + product.getId() + " already exists in the catalog.");
+                            reloadFromCatalog();
+                        }
+                    } catch (IOException ex) {
+                        showAlert("Error", "Failed to save product: " + ex.getMessage());
+                    }
                     refreshProductDisplay();
                 });
                 addForm.start(new Stage());
@@ -270,16 +317,248 @@ public class AdminDashboard extends Application {
             }
         });
 
+        // Bulk import from a supplier catalog file, with progress next to the button
+        Button importButton = new Button("📥 Import Products");
+        styleButton(importButton, "#2980b9");
+        ProgressBar importProgress = new ProgressBar(0);
+        importProgress.setPrefWidth(200);
+        importProgress.setVisible(false);
+        Label importStatus = new Label();
+        importStatus.setTextFill(Color.web("#555555"));
+        importButton.setOnAction(e -> importProducts(importButton, importProgress, importStatus));
+
+        Button diagnosticsButton = new Button("📊 Diagnostics");
+        styleButton(diagnosticsButton, "#8e44ad");
+        diagnosticsButton.setOnAction(e -> showDiagnostics());
+
         // Button container - no view options
         HBox buttonBox = new HBox(15);
         buttonBox.setPadding(new Insets(15));
         buttonBox.setAlignment(Pos.CENTER_LEFT);
-        buttonBox.getChildren().add(addProductButton);
+        buttonBox.getChildren().addAll(addProductButton, importButton, diagnosticsButton, importProgress, importStatus);
         buttonBox.setStyle("-fx-background-color: white; -fx-border-color: #e0e0e0; -fx-border-width: 1 0 0 0;");
 
         return buttonBox;
     }
 
+    private void importProducts(Button importButton, ProgressBar importProgress, Label importStatus) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Products");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Catalog files (*.csv, *.json)", "*.csv", "*.json", "*.ndjson"),
+                new FileChooser.ExtensionFilter("All files", "*.*"));
+        File file = chooser.showOpenDialog(importButton.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        importButton.setDisable(true);
+        importProgress.setProgress(0);
+        importProgress.setVisible(true);
+        importStatus.setText("Importing " + file.getName() + "...");
+
+        // Progress arrives per batch from the import thread; only the latest one is shown
+        AtomicReference<BulkProductImporter.Progress> latest = new AtomicReference<>();
+        AtomicBoolean updateScheduled = new AtomicBoolean();
+        BulkProductImporter.start(file.toPath(), progress -> {
+            latest.set(progress);
+            if (updateScheduled.compareAndSet(false, true)) {
+                Platform.runLater(() -> {
+                    updateScheduled.set(false);
+                    BulkProductImporter.Progress current = latest.get();
+                    importProgress.setProgress(current.getFraction());
+                    importStatus.setText(String.format("%,d rows read, %,d imported, %,d rejected",
+                            current.getRowsRead(), current.getRowsImported(), current.getRowsRejected()));
+                });
+            }
+        }).whenCompleteAsync((result, error) -> {
+            importButton.setDisable(false);
+            importProgress.setVisible(false);
+            if (error != null) {
+                importStatus.setText("");
+                showAlert("Import Failed", MiddlewareAsync.rootCause(error).getMessage());
+                return;
+            }
+            mergeImportedProducts(result.getProducts());
+            importStatus.setText(String.format("%,d products imported in %.1f s",
+                    result.getImportedCount(), result.getElapsedNanos() / 1e9));
+
+            StringBuilder summary = new StringBuilder(String.format("Imported %,d of %,d rows.",
+                    result.getImportedCount(), result.getRowsRead()));
+            if (!result.isSuccess()) {
+                summary.append("\n\n").append(result.getError());
+            }
+            if (result.getRejectedCount() > 0) {
+                summary.append(String.format("\n\n%,d rows were skipped:", result.getRejectedCount()));
+                for (String reject : result.getRejectSamples().subList(0, Math.min(10, result.getRejectSamples().size()))) {
+                    summary.append("\n  ").append(reject);
+                }
+            }
+            showAlert(result.isSuccess() ? "Import Complete" : "Import Stopped", summary.toString());
+        }, MiddlewareAsync.FX_THREAD);
+    }
+
+    // Live view of MetricsRegistry, refreshed every two seconds while open
+    private void showDiagnostics() {
+        TextArea metricsText = new TextArea(MetricsRegistry.toText());
+        metricsText.setEditable(false);
+        metricsText.setStyle("-fx-font-family: 'monospace'; -fx-font-size: 12px;");
+        VBox.setVgrow(metricsText, Priority.ALWAYS);
+
+        Stage diagnosticsStage = new Stage();
+        Timeline refresh = new Timeline(new KeyFrame(Duration.seconds(2), e -> {
+            double scroll = metricsText.getScrollTop();
+            metricsText.setText(MetricsRegistry.toText());
+            metricsText.setScrollTop(scroll);
+        }));
+        refresh.setCycleCount(Timeline.INDEFINITE);
+
+        Button dumpButton = new Button("💾 Dump to File");
+        styleButton(dumpButton, "#27ae60");
+        dumpButton.setOnAction(e -> {
+            try {
+                showAlert("Metrics Saved", "Metrics written to " + MetricsReporter.dump());
+            } catch (IOException ex) {
+                showAlert("Error", "Failed to write metrics: " + ex.getMessage());
+            }
+        });
+
+        VBox layout = new VBox(10, metricsText, dumpButton);
+        layout.setPadding(new Insets(15));
+        diagnosticsStage.setTitle("Diagnostics");
+        diagnosticsStage.setScene(new Scene(layout, 800, 600));
+        diagnosticsStage.setOnHidden(e -> refresh.stop());
+        diagnosticsStage.show();
+        refresh.play();
+    }
+
+    // Apply imported rows in one list update and one catalog commit, replacing products with the same id
+    private void mergeImportedProducts(List<Product> imported) {
+        if (imported.isEmpty()) {
+            return;
+        }
+        try {
+            requireCatalog().putAll(imported);
+        } catch (IOException e) {
+            showAlert("Error", "Failed to save imported products: " + e.getMessage());
+            return;
+        }
+        List<Product> merged = new ArrayList<>(products.size() + imported.size());
+        merged.addAll(products);
+        Map<Integer, Integer> indexById = new HashMap<>();
+        for (int i = 0; i < merged.size(); i++) {
+            indexById.put(merged.get(i).getId(), i);
+        }
+        for (Product product : imported) {
+            Integer index = indexById.get(product.getId());
+            if (index != null) {
+                merged.set(index, product);
+            } else {
+                indexById.put(product.getId(), merged.size());
+                merged.add(product);
+            }
+        }
+        products.setAll(merged);
+        refreshProductDisplay();
+    }
+
+    // Commit an edit only over the version the dialog was filled from. If someone changed the
+    // product in the meantime, reload and ask again with their values.
+    private void editProduct(Product product) {
+        Product shown = product;
+        while (shown != null) {
+            Optional<Product> edited = showEditDialog(shown);
+            if (edited.isEmpty()) {
+                return;
+            }
+            try {
+                VersionedCatalog.Result result = requireCatalog().update(edited.get());
+                ProductCache.shared().invalidate(shown.getId());
+                if (result.isApplied()) {
+                    int index = products.indexOf(edited.get());
+                    if (index >= 0) {
+                        products.set(index, edited.get());
+                    } else {
+                        products.add(edited.get());
+                    }
+                    refreshProductDisplay();
+                    return;
+                }
+                showAlert("Product Changed", result.getStatus() == VersionedCatalog.Status.NOT_FOUND
+                        ? shown.getName() + " was deleted by someone else."
+                        : shown.getName() + " was changed by someone else. Your edit was not saved; review their changes and edit again.");
+                reloadFromCatalog();
+                refreshProductDisplay();
+                shown = products.getById(shown.getId());
+            } catch (IOException ex) {
+                showAlert("Error", "Failed to update product: " + ex.getMessage());
+                return;
+            }
+        }
+    }
+
+    // The edited copy (same id, and the version it was read at), or empty if cancelled
+    private Optional<Product> showEditDialog(Product product) {
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Edit Product");
+        dialog.setHeaderText("Product #" + product.getId());
+
+        DialogPane dialogPane = dialog.getDialogPane();
+        dialogPane.getButtonTypes().addAll(ButtonType.CANCEL, ButtonType.OK);
+        Button saveButton = (Button) dialogPane.lookupButton(ButtonType.OK);
+        saveButton.setText("Save");
+
+        TextField nameField = new TextField(product.getName());
+        TextField categoryField = new TextField(product.getCategory());
+        TextField priceField = new TextField(Money.toDecimal(Money.toMinor(product.getPrice())).toPlainString());
+        TextField stockField = new TextField(String.valueOf(product.getStock()));
+        TextArea descriptionArea = new TextArea(product.getDescription());
+        descriptionArea.setPrefRowCount(4);
+        descriptionArea.setWrapText(true);
+
+        GridPane form = new GridPane();
+        form.setHgap(10);
+        form.setVgap(10);
+        form.setPadding(new Insets(20));
+        form.addRow(0, new Label("Name:"), nameField);
+        form.addRow(1, new Label("Category:"), categoryField);
+        form.addRow(2, new Label("Price ($):"), priceField);
+        form.addRow(3, new Label("Stock:"), stockField);
+        form.addRow(4, new Label("Description:"), descriptionArea);
+        dialogPane.setContent(form);
+
+        Product edited = new Product(product.getId(), null, null, 0, 0);
+        edited.setVersion(product.getVersion());
+        // Keep the dialog open until the input is valid
+        saveButton.addEventFilter(ActionEvent.ACTION, e -> {
+            try {
+                long cents = Money.fromDecimal(new BigDecimal(priceField.getText().trim()));
+                int stock = Integer.parseInt(stockField.getText().trim());
+                if (nameField.getText().trim().isEmpty()) {
+                    showAlert("Invalid Product", "Name is required.");
+                    e.consume();
+                } else if (cents <= 0) {
+                    showAlert("Invalid Product", "Price must be greater than zero.");
+                    e.consume();
+                } else if (stock < 0) {
+                    showAlert("Invalid Product", "Stock cannot be negative.");
+                    e.consume();
+                } else {
+                    edited.setName(nameField.getText().trim());
+                    edited.setCategory(categoryField.getText().trim());
+                    edited.setPrice(Money.toMajor(cents));
+                    edited.setStock(stock);
+                    edited.setDescription(descriptionArea.getText());
+                }
+            } catch (NumberFormatException ex) {
+                showAlert("Invalid Product", "Please enter valid numbers for Price and Stock.");
+                e.consume();
+            }
+        });
+
+        return dialog.showAndWait().filter(button -> button == ButtonType.OK).map(button -> edited);
+    }
+
     private void styleButton(Button button, String backgroundColor) {
         button.setStyle(
                 "-fx-background-color: " + backgroundColor + ";" +
@@ -314,26 +593,20 @@ public class AdminDashboard extends Application {
     }
 
     private void refreshProductDisplay() {
-        productContainer.getChildren().clear();
-        for (Product product : products) {
-            productContainer.getChildren().add(createProductCard(product));
-        }
+        long start = System.nanoTime();
+        // Only the visible rows are (re)bound
+        productContainer.setProducts(products);
+        MetricsRegistry.recordSince(REFRESH_LATENCY, start);
     }
 
     private void filterProducts(String searchText) {
-        productContainer.getChildren().clear();
         if (searchText == null || searchText.isEmpty()) {
+            searchExecutor.cancel();
             refreshProductDisplay();
             return;
         }
 
-        String lowerSearchText = searchText.toLowerCase();
-        for (Product product : products) {
-            if (product.getName().toLowerCase().contains(lowerSearchText) ||
-                    product.getDescription().toLowerCase().contains(lowerSearchText)) {
-                productContainer.getChildren().add(createProductCard(product));
-            }
-        }
+        searchExecutor.submit(searchText);
     }
 
     private VBox createProductCard(Product product) {
@@ -371,15 +644,18 @@ public class AdminDashboard extends Application {
         // Product ID and name
         Label idLabel = new Label("#" + product.getId());
         idLabel.setStyle("-fx-text-fill: #7f8c8d; -fx-font-size: 12px;");
+        card.getProperties().put("idLabel", idLabel);
 
         Label nameLabel = new Label(product.getName());
         nameLabel.setFont(Font.font("Arial", FontWeight.BOLD, 16));
         nameLabel.setWrapText(true);
+        card.getProperties().put("nameLabel", nameLabel);
 
         // Price with currency
-        Label priceLabel = new Label(String.format("$%.2f", product.getPrice()));
+        Label priceLabel = new Label(MoneyFormat.formatMinor(Money.toMinor(product.getPrice())));
         priceLabel.setFont(Font.font("Arial", FontWeight.BOLD, 18));
         priceLabel.setStyle("-fx-text-fill: #2c3e50;");
+        card.getProperties().put("priceLabel", priceLabel);
 
         // Stock indicator
         HBox stockBox = new HBox(5);
@@ -388,12 +664,15 @@ public class AdminDashboard extends Application {
         Label stockLabel = new Label("In Stock: " + product.getStock());
         stockBox.getChildren().addAll(stockIndicator, stockLabel);
         stockBox.setAlignment(Pos.CENTER_LEFT);
+        card.getProperties().put("stockIndicator", stockIndicator);
+        card.getProperties().put("stockLabel", stockLabel);
 
         // Description
         Label descLabel = new Label(product.getDescription());
         descLabel.setWrapText(true);
         descLabel.setMaxHeight(60);
         descLabel.setStyle("-fx-text-fill: #7f8c8d; -fx-font-size: 13px;");
+        card.getProperties().put("descLabel", descLabel);
 
         Separator separator = new Separator();
         separator.setStyle("-fx-background-color: #e0e0e0;");
@@ -404,16 +683,28 @@ public class AdminDashboard extends Application {
 
         Button editButton = new Button("✏️ Edit");
         styleActionButton(editButton, "#f39c12");
-        editButton.setOnAction(e -> {
-            showAlert("Info", "Edit functionality not implemented yet");
-        });
+        editButton.setOnAction(e -> editProduct((Product) card.getUserData()));
 
         Button deleteButton = new Button("🗑️ Delete");
         styleActionButton(deleteButton, "#e74c3c");
         deleteButton.setOnAction(e -> {
-            if (showConfirmation("Delete Product", "Are you sure you want to delete " + product.getName() + "?")) {
-                products.remove(product);
-                saveProducts();
+            Product current = (Product) card.getUserData();
+            if (showConfirmation("Delete Product", "Are you sure you want to delete " + current.getName() + "?")) {
+                try {
+                    // Only delete the version this card shows; someone may have changed it since
+                    VersionedCatalog.Result result = requireCatalog().delete(current.getId(), current.getVersion());
+                    ProductCache.shared().invalidate(current.getId());
+                    if (result.isApplied()) {
+                        products.remove(current);
+                    } else {
+                        showAlert("Product Changed", result.getStatus() == VersionedCatalog.Status.NOT_FOUND
+                                ? current.getName() + " was already deleted."
+                                : current.getName() + " was changed by someone else. Review it and try again.");
+                        reloadFromCatalog();
+                    }
+                } catch (IOException ex) {
+                    showAlert("Error", "Failed to delete product: " + ex.getMessage());
+                }
                 refreshProductDisplay();
             }
         });
@@ -436,6 +727,17 @@ public class AdminDashboard extends Application {
         return card;
     }
 
+    // Refresh the labels of a cached card after its product changed
+    private void updateProductCard(VBox card, Product product) {
+        ((Label) card.getProperties().get("idLabel")).setText("#" + product.getId());
+        ((Label) card.getProperties().get("nameLabel")).setText(product.getName());
+        ((Label) card.getProperties().get("priceLabel")).setText(MoneyFormat.formatMinor(Money.toMinor(product.getPrice())));
+        ((Circle) card.getProperties().get("stockIndicator")).setFill(
+                product.getStock() > 5 ? Color.GREEN : (product.getStock() > 0 ? Color.ORANGE : Color.RED));
+        ((Label) card.getProperties().get("stockLabel")).setText("In Stock: " + product.getStock());
+        ((Label) card.getProperties().get("descLabel")).setText(product.getDescription());
+    }
+
     private void styleActionButton(Button button, String color) {
         button.setStyle(
                 "-fx-background-color: " + color + ";" +
@@ -473,34 +775,57 @@ public class AdminDashboard extends Application {
     }
 
     private void loadProducts() {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(PRODUCT_FILE))) {
-            List<Product> loadedProducts = (List<Product>) ois.readObject();
-            products.clear();
-            products.addAll(loadedProducts);
-        } catch (FileNotFoundException e) {
-            // File doesn't exist yet, add sample products
-            products.addAll(
-                    new Product(1, "Laptop", "High-performance gaming laptop with RTX 3080, 16GB RAM, and 1TB SSD storage", 1299.99, 10),
-                    new Product(2, "Smartphone", "Latest model with 5G support, 6.7-inch display, and 128GB storage", 799.99, 15),
-                    new Product(3, "Headphones", "Noise-cancelling wireless headphones with 40-hour battery life", 199.99, 20),
-                    new Product(4, "Smart Watch", "Fitness tracking, heart rate monitoring, and GPS capabilities", 249.99, 8),
-                    new Product(5, "Tablet", "10-inch display, 64GB storage, perfect for productivity and entertainment", 349.99, 12)
-            );
-            saveProducts(); // Save sample products
-        } catch (IOException | ClassNotFoundException e) {
+        Path productFile = Paths.get(PRODUCT_FILE);
+        try {
+            boolean exists = Files.exists(productFile);
+            if (exists) {
+                // Convert an old Java-serialized products.dat on first start
+                CatalogMigrator.migrateIfNeeded(productFile);
+            }
+            catalog = VersionedCatalog.open(productFile);
+            if (!exists && catalog.getProducts().isEmpty()) {
+                // File doesn't exist yet, add sample products
+                catalog.putAll(List.of(
+                        new Product(1, "Laptop", "High-performance gaming laptop with RTX 3080, 16GB RAM, and 1TB SSD storage", 1299.99, 10),
+                        new Product(2, "Smartphone", "Latest model with 5G support, 6.7-inch display, and 128GB storage", 799.99, 15),
+                        new Product(3, "Headphones", "Noise-cancelling wireless headphones with 40-hour battery life", 199.99, 20),
+                        new Product(4, "Smart Watch", "Fitness tracking, heart rate monitoring, and GPS capabilities", 249.99, 8),
+                        new Product(5, "Tablet", "10-inch display, 64GB storage, perfect for productivity and entertainment", 349.99, 12)
+                ));
+                catalog.compact(); // Save sample products
+            }
+            products.setStore(catalog.snapshot());
+        } catch (IOException e) {
             showAlert("Error", "Failed to load products: " + e.getMessage());
         }
     }
 
+    // Edits are already committed to the change log; this folds the log into products.dat
     public void saveProducts() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(PRODUCT_FILE))) {
-            List<Product> productList = new ArrayList<>(products);
-            oos.writeObject(productList);
+        if (catalog == null) {
+            return;
+        }
+        try {
+            catalog.compact();
         } catch (IOException e) {
             showAlert("Error", "Failed to save products: " + e.getMessage());
         }
     }
 
+    // Replace the list with the catalog's current contents (after a rejected change)
+    private void reloadFromCatalog() throws IOException {
+        VersionedCatalog current = requireCatalog();
+        current.refresh();
+        products.setStore(current.snapshot());
+    }
+
+    private VersionedCatalog requireCatalog() throws IOException {
+        if (catalog == null) {
+            throw new IOException("Product catalog is not loaded");
+        }
+        return catalog;
+    }
+
     private void showAlert(String title, String message) {
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
         alert.setTitle(title);
@@ -531,6 +856,17 @@ public class AdminDashboard extends Application {
         private String description;
         private double price;
         private int stock;
+        private String category;
+        // VersionedCatalog stamp of the state this copy was read at; 0 = never versioned
+        private long version;
+
+        // Created on first call to the matching *Property() method; the setters and the property
+        // keep each other in sync
+        private transient SimpleIntegerProperty idProperty;
+        private transient SimpleStringProperty nameProperty;
+        private transient SimpleStringProperty descriptionProperty;
+        private transient SimpleDoubleProperty priceProperty;
+        private transient SimpleIntegerProperty stockProperty;
 
         public Product(int id, String name, String description, double price, int stock) {
             this.id = id;
@@ -540,7 +876,12 @@ public class AdminDashboard extends Application {
             this.stock = stock;
         }
 
-        public Product(String smartphoneXsPro, String electronics, double v, String s, int stock) {
+        public Product(String name, String category, double price, String description, int stock) {
+            this.name = name;
+            this.category = category;
+            this.price = price;
+            this.description = description;
+            this.stock = stock;
         }
 
         public Product() {
@@ -553,22 +894,80 @@ public class AdminDashboard extends Application {
         public String getDescription() { return description; }
         public double getPrice() { return price; }
         public int getStock() { return stock; }
+        public long getVersion() { return version; }
+
+        public void setId(int id) {
+            this.id = id;
+            if (idProperty != null) idProperty.set(id);
+        }
 
-        public void setId(int id) { this.id = id; }
-        public void setName(String name) { this.name = name; }
-        public void setDescription(String description) { this.description = description; }
-        public void setPrice(double price) { this.price = price; }
-        public void setStock(int stock) { this.stock = stock; }
+        public void setName(String name) {
+            this.name = name;
+            if (nameProperty != null) nameProperty.set(name);
+        }
+
+        public void setDescription(String description) {
+            this.description = description;
+            if (descriptionProperty != null) descriptionProperty.set(description);
+        }
+
+        public void setPrice(double price) {
+            this.price = price;
+            if (priceProperty != null) priceProperty.set(price);
+        }
+
+        public void setStock(int stock) {
+            this.stock = stock;
+            if (stockProperty != null) stockProperty.set(stock);
+        }
+
+        public void setCategory(String category) { this.category = category; }
+        public void setVersion(long version) { this.version = version; }
+
+        // Property methods for JavaFX; each property is created once per product, not per call.
+        // Setting a property goes through the matching setter, so the field follows it.
+        public SimpleIntegerProperty idProperty() {
+            if (idProperty == null) {
+                idProperty = new SimpleIntegerProperty(this, "id", getId());
+                idProperty.addListener((obs, oldValue, newValue) -> setId(newValue.intValue()));
+            }
+            return idProperty;
+        }
 
-        // Property methods for JavaFX
-        public SimpleIntegerProperty idProperty() { return new SimpleIntegerProperty(id); }
-        public SimpleStringProperty nameProperty() { return new SimpleStringProperty(name); }
-        public SimpleStringProperty descriptionProperty() { return new SimpleStringProperty(description); }
-        public SimpleDoubleProperty priceProperty() { return new SimpleDoubleProperty(price); }
-        public SimpleIntegerProperty stockProperty() { return new SimpleIntegerProperty(stock); }
+        public SimpleStringProperty nameProperty() {
+            if (nameProperty == null) {
+                nameProperty = new SimpleStringProperty(this, "name", getName());
+                nameProperty.addListener((obs, oldValue, newValue) -> setName(newValue));
+            }
+            return nameProperty;
+        }
+
+        public SimpleStringProperty descriptionProperty() {
+            if (descriptionProperty == null) {
+                descriptionProperty = new SimpleStringProperty(this, "description", getDescription());
+                descriptionProperty.addListener((obs, oldValue, newValue) -> setDescription(newValue));
+            }
+            return descriptionProperty;
+        }
+
+        public SimpleDoubleProperty priceProperty() {
+            if (priceProperty == null) {
+                priceProperty = new SimpleDoubleProperty(this, "price", getPrice());
+                priceProperty.addListener((obs, oldValue, newValue) -> setPrice(newValue.doubleValue()));
+            }
+            return priceProperty;
+        }
+
+        public SimpleIntegerProperty stockProperty() {
+            if (stockProperty == null) {
+                stockProperty = new SimpleIntegerProperty(this, "stock", getStock());
+                stockProperty.addListener((obs, oldValue, newValue) -> setStock(newValue.intValue()));
+            }
+            return stockProperty;
+        }
 
         public String getCategory() {
-            return "";
+            return category != null ? category : "";
         }
     }
 
@@ -2,25 +2,108 @@
 package com.lude.app.BackEnd;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import com.lude.app.Logging.Log;
+import com.lude.app.Logging.Logger;
+import com.lude.app.Metrics.LatencyHistogram;
+import com.lude.app.Metrics.MetricsRegistry;
 
 public class BackEnd {
+
+    private static final Logger LOG = Log.get(BackEnd.class);
+
     // Database connection parameters
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/Nep_shop";
-    private static final String DB_USER = "root";
-    private static final String DB_PASSWORD = "utsab";
+    // rewriteBatchedStatements lets the driver collapse JDBC batches into multi-row statements;
+    // cachePrepStmts + useServerPrepStmts keep server-side prepared statements per pooled connection
+    // Override with -Dnepshop.db.url/user/password, e.g. to point benchmarks at an embedded database
+    private static final String DB_URL = System.getProperty("nepshop.db.url",
+            "jdbc:mysql://localhost:3306/Nep_shop?rewriteBatchedStatements=true"
+                    + "&cachePrepStmts=true&useServerPrepStmts=true&prepStmtCacheSize=256&prepStmtCacheSqlLimit=8192");
+    private static final String DB_USER = System.getProperty("nepshop.db.user", "root");
+    private static final String DB_PASSWORD = System.getProperty("nepshop.db.password", "utsab");
+
+    // Connection pool settings (override with -Dnepshop.db.pool.<name>=<value>)
+    private static final int POOL_MIN_SIZE = Integer.getInteger("nepshop.db.pool.minSize", 2);
+    private static final int POOL_MAX_SIZE = Integer.getInteger("nepshop.db.pool.maxSize", 10);
+    private static final long POOL_IDLE_TIMEOUT_MS = Long.getLong("nepshop.db.pool.idleTimeoutMs", 300_000L);
+    private static final long POOL_BORROW_TIMEOUT_MS = Long.getLong("nepshop.db.pool.borrowTimeoutMs", 5_000L);
+    private static final int POOL_VALIDATION_TIMEOUT_S = Integer.getInteger("nepshop.db.pool.validationTimeoutS", 2);
+
+    private static volatile ConnectionPool pool;
 
-    // Get database connection
+    // Time to hand out a connection, including waiting for the pool and opening new ones
+    private static final LatencyHistogram ACQUIRE_LATENCY = MetricsRegistry.histogram("db.connection.acquire");
+    private static final LongAdder ACQUIRE_FAILURES = MetricsRegistry.counter("db.connection.failures");
+
+    static {
+        MetricsRegistry.gauge("db.pool.total", () -> poolStat(ConnectionPool.PoolStats::getTotalConnections));
+        MetricsRegistry.gauge("db.pool.active", () -> poolStat(ConnectionPool.PoolStats::getActiveConnections));
+        MetricsRegistry.gauge("db.pool.idle", () -> poolStat(ConnectionPool.PoolStats::getIdleConnections));
+        MetricsRegistry.gauge("db.pool.waiting", () -> poolStat(ConnectionPool.PoolStats::getWaitingThreads));
+        MetricsRegistry.gauge("db.pool.borrowTimeouts", () -> poolStat(ConnectionPool.PoolStats::getBorrowTimeouts));
+        MetricsRegistry.gauge("db.pool.validationFailures", () -> poolStat(ConnectionPool.PoolStats::getValidationFailures));
+    }
+
+    // Get database connection (pooled; closing it returns it to the pool)
     public static Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
         try {
-            // Load MySQL JDBC driver
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            return DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("Database driver not found", e);
+            return getPool().borrow();
+        } catch (SQLException | RuntimeException e) {
+            ACQUIRE_FAILURES.increment();
+            throw e;
+        } finally {
+            MetricsRegistry.recordSince(ACQUIRE_LATENCY, start);
+        }
+    }
+
+    private static double poolStat(ToLongFunction<ConnectionPool.PoolStats> stat) {
+        ConnectionPool.PoolStats stats = getPoolStats();
+        return stats == null ? 0 : stat.applyAsLong(stats);
+    }
+
+    private static ConnectionPool getPool() throws SQLException {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (BackEnd.class) {
+                current = pool;
+                if (current == null) {
+                    if (DB_URL.startsWith("jdbc:mysql:")) {
+                        try {
+                            // Load MySQL JDBC driver once, not on every request
+                            Class.forName("com.mysql.cj.jdbc.Driver");
+                        } catch (ClassNotFoundException e) {
+                            throw new SQLException("Database driver not found", e);
+                        }
+                    }
+                    current = new ConnectionPool(DB_URL, DB_USER, DB_PASSWORD,
+                            POOL_MIN_SIZE, POOL_MAX_SIZE,
+                            POOL_IDLE_TIMEOUT_MS, POOL_BORROW_TIMEOUT_MS,
+                            POOL_VALIDATION_TIMEOUT_S);
+                    pool = current;
+                    Runtime.getRuntime().addShutdownHook(new Thread(BackEnd::shutdownPool, "db-pool-shutdown"));
+                }
+            }
+        }
+        return current;
+    }
+
+    // Current pool counters, or null if no connection has been requested yet
+    public static ConnectionPool.PoolStats getPoolStats() {
+        ConnectionPool current = pool;
+        return current != null ? current.getStats() : null;
+    }
+
+    // Close all pooled connections
+    public static void shutdownPool() {
+        ConnectionPool current = pool;
+        if (current != null) {
+            current.shutdown();
         }
     }
 
@@ -29,9 +112,9 @@ public class BackEnd {
         try {
             if (rs != null) rs.close();
             if (pstmt != null) pstmt.close();
-            if (conn != null) conn.close();
+            if (conn != null) conn.close(); // Returns a pooled connection to the pool
         } catch (SQLException e) {
-            System.err.println("Error closing database resources: " + e.getMessage());
+            LOG.warn("Error closing database resources", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,361 @@
+// ConnectionPool.java
+package com.lude.app.BackEnd;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.lude.app.Logging.Log;
+import com.lude.app.Logging.Logger;
+
+// Bounded JDBC connection pool. Connections handed out by borrow() are proxies:
+// calling close() on them returns the physical connection to the pool instead of
+// tearing down the socket, so existing try/finally + closeResources code keeps working.
+public class ConnectionPool {
+
+    private static final Logger LOG = Log.get(ConnectionPool.class);
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long borrowTimeoutMillis;
+    private final int validationTimeoutSeconds;
+
+    // Idle connections, most recently returned first (keeps hot sockets hot)
+    private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+    // One permit per connection that may be handed out
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final ScheduledExecutorService evictor;
+
+    // Metrics
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder evictedCount = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password,
+                          int minSize, int maxSize,
+                          long idleTimeoutMillis, long borrowTimeoutMillis,
+                          int validationTimeoutSeconds) {
+        if (minSize < 0 || maxSize <= 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictAndRefill, period, period, TimeUnit.MILLISECONDS);
+
+        // Warm up the minimum number of connections so the first logins skip the handshake
+        evictor.execute(this::refill);
+    }
+
+    // Borrow a connection, waiting at most borrowTimeoutMillis for one to become free
+    public Connection borrow() throws SQLException {
+        if (closed.get()) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.increment();
+                throw new SQLException("Timed out after " + borrowTimeoutMillis
+                        + " ms waiting for a database connection (max pool size " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledEntry entry;
+            while ((entry = idle.pollFirst()) != null) {
+                if (isUsable(entry)) {
+                    break;
+                }
+                validationFailures.increment();
+                destroy(entry);
+            }
+            if (entry == null) {
+                entry = create();
+            }
+
+            recordWait(System.nanoTime() - start);
+            borrowCount.increment();
+            return entry.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private boolean isUsable(PooledEntry entry) {
+        try {
+            return !entry.physical.isClosed() && entry.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledEntry create() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        totalConnections.incrementAndGet();
+        createdCount.increment();
+        return new PooledEntry(physical);
+    }
+
+    private void destroy(PooledEntry entry) {
+        totalConnections.decrementAndGet();
+        try {
+            entry.physical.close();
+        } catch (SQLException e) {
+            LOG.warn("Error closing pooled connection", e);
+        }
+    }
+
+    // Called by the proxy when the borrower closes its connection
+    private void release(PooledEntry entry, boolean broken) {
+        try {
+            if (broken || closed.get()) {
+                destroy(entry);
+                return;
+            }
+            try {
+                // Never hand a half-finished transaction to the next borrower
+                if (!entry.physical.getAutoCommit()) {
+                    entry.physical.rollback();
+                    entry.physical.setAutoCommit(true);
+                }
+                entry.physical.clearWarnings();
+            } catch (SQLException e) {
+                destroy(entry);
+                return;
+            }
+            entry.lastReturned = System.currentTimeMillis();
+            idle.offerFirst(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void evictAndRefill() {
+        long now = System.currentTimeMillis();
+        // Oldest idle connections sit at the tail of the deque
+        Iterator<PooledEntry> it = idle.descendingIterator();
+        while (it.hasNext() && totalConnections.get() > minSize) {
+            PooledEntry entry = it.next();
+            if (now - entry.lastReturned >= idleTimeoutMillis && idle.remove(entry)) {
+                evictedCount.increment();
+                destroy(entry);
+            }
+        }
+        refill();
+    }
+
+    private void refill() {
+        while (!closed.get() && totalConnections.get() < minSize) {
+            try {
+                idle.offerLast(create());
+            } catch (SQLException e) {
+                LOG.warn("Error pre-filling connection pool", e, "minSize", minSize);
+                return;
+            }
+        }
+    }
+
+    private void recordWait(long nanos) {
+        totalWaitNanos.add(nanos);
+        long max;
+        do {
+            max = maxWaitNanos.get();
+        } while (nanos > max && !maxWaitNanos.compareAndSet(max, nanos));
+    }
+
+    public PoolStats getStats() {
+        long borrows = borrowCount.sum();
+        return new PoolStats(
+                totalConnections.get(),
+                idle.size(),
+                maxSize - permits.availablePermits(),
+                permits.getQueueLength(),
+                borrows,
+                timeoutCount.sum(),
+                createdCount.sum(),
+                evictedCount.sum(),
+                validationFailures.sum(),
+                borrows == 0 ? 0 : totalWaitNanos.sum() / borrows,
+                maxWaitNanos.get()
+        );
+    }
+
+    // Close every idle connection; connections still on loan are closed when returned
+    public void shutdown() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        evictor.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            destroy(entry);
+        }
+    }
+
+    // A physical connection plus bookkeeping
+    private final class PooledEntry {
+        private final Connection physical;
+        private volatile long lastReturned = System.currentTimeMillis();
+
+        private PooledEntry(Connection physical) {
+            this.physical = physical;
+        }
+
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new LeaseHandler(this));
+        }
+    }
+
+    // Routes calls to the physical connection until the borrower closes it
+    private final class LeaseHandler implements InvocationHandler {
+        private final PooledEntry entry;
+        private final AtomicBoolean returned = new AtomicBoolean(false);
+        private volatile boolean broken;
+
+        private LeaseHandler(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (returned.compareAndSet(false, true)) {
+                        release(entry, broken);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned.get() || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + entry.physical + "]";
+                default:
+                    break;
+            }
+
+            if (returned.get()) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            try {
+                return method.invoke(entry.physical, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                // SQLState class 08 = connection exception; don't recycle a dead socket
+                if (cause instanceof SQLException sqlException
+                        && sqlException.getSQLState() != null
+                        && sqlException.getSQLState().startsWith("08")) {
+                    broken = true;
+                }
+                throw cause;
+            }
+        }
+    }
+
+    // Point-in-time view of the pool counters
+    public static class PoolStats {
+        private final int totalConnections;
+        private final int idleConnections;
+        private final int activeConnections;
+        private final int waitingThreads;
+        private final long borrowCount;
+        private final long borrowTimeouts;
+        private final long createdCount;
+        private final long evictedCount;
+        private final long validationFailures;
+        private final long averageWaitNanos;
+        private final long maxWaitNanos;
+
+        public PoolStats(int totalConnections, int idleConnections, int activeConnections, int waitingThreads,
+                         long borrowCount, long borrowTimeouts, long createdCount, long evictedCount,
+                         long validationFailures, long averageWaitNanos, long maxWaitNanos) {
+            this.totalConnections = totalConnections;
+            this.idleConnections = idleConnections;
+            this.activeConnections = activeConnections;
+            this.waitingThreads = waitingThreads;
+            this.borrowCount = borrowCount;
+            this.borrowTimeouts = borrowTimeouts;
+            this.createdCount = createdCount;
+            this.evictedCount = evictedCount;
+            this.validationFailures = validationFailures;
+            this.averageWaitNanos = averageWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        public int getTotalConnections() { return totalConnections; }
+        public int getIdleConnections() { return idleConnections; }
+        public int getActiveConnections() { return activeConnections; }
+        public int getWaitingThreads() { return waitingThreads; }
+        public long getBorrowCount() { return borrowCount; }
+        public long getBorrowTimeouts() { return borrowTimeouts; }
+        public long getCreatedCount() { return createdCount; }
+        public long getEvictedCount() { return evictedCount; }
+        public long getValidationFailures() { return validationFailures; }
+        public long getAverageWaitNanos() { return averageWaitNanos; }
+        public long getMaxWaitNanos() { return maxWaitNanos; }
+
+        @Override
+        public String toString() {
+            return "PoolStats{total=" + totalConnections +
+                    ", idle=" + idleConnections +
+                    ", active=" + activeConnections +
+                    ", waiting=" + waitingThreads +
+                    ", borrows=" + borrowCount +
+                    ", timeouts=" + borrowTimeouts +
+                    ", created=" + createdCount +
+                    ", evicted=" + evictedCount +
+                    ", validationFailures=" + validationFailures +
+                    ", avgWaitMs=" + String.format("%.3f", averageWaitNanos / 1_000_000.0) +
+                    ", maxWaitMs=" + String.format("%.3f", maxWaitNanos / 1_000_000.0) +
+                    "}";
+        }
+    }
+}
@@ -0,0 +1,60 @@
+// CatalogDiff.java
+package com.lude.app.Catalog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.lude.app.AdminDashboard;
+
+// Products added, removed and changed between two catalog snapshots (keyed by product id)
+public class CatalogDiff {
+
+    private final List<AdminDashboard.Product> added;
+    private final List<AdminDashboard.Product> removed;
+    private final List<AdminDashboard.Product> changed;
+
+    public CatalogDiff(List<AdminDashboard.Product> added,
+                       List<AdminDashboard.Product> removed,
+                       List<AdminDashboard.Product> changed) {
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.changed = Collections.unmodifiableList(changed);
+    }
+
+    // Compare the previous snapshot with a freshly loaded catalog; Product objects are created
+    // only for the differences
+    public static CatalogDiff between(ProductStore previous, ProductStore current) {
+        List<AdminDashboard.Product> added = new ArrayList<>();
+        List<AdminDashboard.Product> changed = new ArrayList<>();
+        for (int i = 0; i < current.size(); i++) {
+            int old = previous.indexOf(current.getId(i));
+            if (old < 0) {
+                added.add(current.toProduct(i));
+            } else if (!current.sameContent(i, previous, old)) {
+                changed.add(current.toProduct(i));
+            }
+        }
+
+        List<AdminDashboard.Product> removed = new ArrayList<>();
+        for (int i = 0; i < previous.size(); i++) {
+            if (current.indexOf(previous.getId(i)) < 0) {
+                removed.add(previous.toProduct(i));
+            }
+        }
+        return new CatalogDiff(added, removed, changed);
+    }
+
+    public List<AdminDashboard.Product> getAdded() { return added; }
+    public List<AdminDashboard.Product> getRemoved() { return removed; }
+    public List<AdminDashboard.Product> getChanged() { return changed; }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogDiff{added=" + added.size() + ", removed=" + removed.size() + ", changed=" + changed.size() + "}";
+    }
+}
@@ -0,0 +1,376 @@
+// CatalogFile.java
+package com.lude.app.Catalog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import com.lude.app.AdminDashboard;
+import com.lude.app.Metrics.LatencyHistogram;
+import com.lude.app.Metrics.MetricsRegistry;
+import com.lude.app.Pricing.Money;
+
+// Compact, versioned, columnar binary format for the product catalog.
+//
+// Layout (little endian):
+//   header  int magic "NEPC", short version, short flags, int productCount,
+//           int stringCount, int stringBlobBytes, int crc32(body)
+//   body    double[count] prices
+//           int[count] ids, stock, nameRef, descriptionRef, categoryRef   (refs index the string table, -1 = null)
+//           int[stringCount + 1] string offsets into the blob
+//           byte[stringBlobBytes] UTF-8 string blob
+//   tail    long sequence, long[count] versions         (only when flags has FLAG_VERSIONED)
+//
+// Repeated strings (categories, duplicated descriptions) are stored once in the string table.
+// The tail carries VersionedCatalog's state: the last change sequence folded into this file
+// and each product's version stamp. Format version 2 added the tail; version 1 files (which
+// have no flags) are still read, as sequence 0 with all versions 0.
+public final class CatalogFile {
+
+    public static final int MAGIC = 0x4350454E; // "NEPC" read as little endian
+    public static final short VERSION = 2;
+    public static final int HEADER_BYTES = 24;
+    public static final short FLAG_VERSIONED = 1;
+
+    private static final int NULL_REF = -1;
+
+    private static final LatencyHistogram WRITE_LATENCY = MetricsRegistry.histogram("catalog.write");
+    private static final LatencyHistogram READ_LATENCY = MetricsRegistry.histogram("catalog.read");
+
+    private CatalogFile() {
+    }
+
+    // Write the catalog atomically (temp file + move) so readers never see a half-written file
+    public static void write(Path path, List<AdminDashboard.Product> products) throws IOException {
+        write(path, products, 0);
+    }
+
+    // Same, recording the change sequence the products reflect; versions come from the products
+    public static void write(Path path, List<AdminDashboard.Product> products, long sequence) throws IOException {
+        long start = System.nanoTime();
+        try {
+            writeFile(path, products, sequence);
+        } finally {
+            MetricsRegistry.recordSince(WRITE_LATENCY, start);
+        }
+    }
+
+    private static void writeFile(Path path, List<AdminDashboard.Product> products, long sequence) throws IOException {
+        int count = products.size();
+
+        // Build the string table
+        Map<String, Integer> stringIndex = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int[] nameRefs = new int[count];
+        int[] descriptionRefs = new int[count];
+        int[] categoryRefs = new int[count];
+        int blobBytes = 0;
+        for (int i = 0; i < count; i++) {
+            AdminDashboard.Product product = products.get(i);
+            nameRefs[i] = intern(product.getName(), stringIndex, strings);
+            descriptionRefs[i] = intern(product.getDescription(), stringIndex, strings);
+            categoryRefs[i] = intern(product.getCategory(), stringIndex, strings);
+        }
+        for (byte[] bytes : strings) {
+            blobBytes += bytes.length;
+        }
+
+        int stringCount = strings.size();
+        long bodyBytes = bodyBytes(count, stringCount, blobBytes, FLAG_VERSIONED);
+        if (HEADER_BYTES + bodyBytes > Integer.MAX_VALUE) {
+            throw new IOException("Catalog too large for format version " + VERSION);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) (HEADER_BYTES + bodyBytes)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(HEADER_BYTES);
+        for (AdminDashboard.Product product : products) buffer.putDouble(product.getPrice());
+        for (AdminDashboard.Product product : products) buffer.putInt(product.getId());
+        for (AdminDashboard.Product product : products) buffer.putInt(product.getStock());
+        for (int ref : nameRefs) buffer.putInt(ref);
+        for (int ref : descriptionRefs) buffer.putInt(ref);
+        for (int ref : categoryRefs) buffer.putInt(ref);
+
+        int offset = 0;
+        for (byte[] bytes : strings) {
+            buffer.putInt(offset);
+            offset += bytes.length;
+        }
+        buffer.putInt(offset);
+        for (byte[] bytes : strings) {
+            buffer.put(bytes);
+        }
+        buffer.putLong(sequence);
+        for (AdminDashboard.Product product : products) buffer.putLong(product.getVersion());
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_BYTES, (int) bodyBytes);
+
+        buffer.position(0);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putShort(FLAG_VERSIONED);
+        buffer.putInt(count);
+        buffer.putInt(stringCount);
+        buffer.putInt(blobBytes);
+        buffer.putInt((int) crc.getValue());
+        buffer.rewind();
+
+        Path absolute = path.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int intern(String value, Map<String, Integer> stringIndex, List<byte[]> strings) {
+        if (value == null) {
+            return NULL_REF;
+        }
+        Integer ref = stringIndex.get(value);
+        if (ref == null) {
+            ref = strings.size();
+            stringIndex.put(value, ref);
+            strings.add(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return ref;
+    }
+
+    // Read the whole catalog through a memory-mapped view of the file
+    public static List<AdminDashboard.Product> read(Path path) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return readFile(path);
+        } finally {
+            MetricsRegistry.recordSince(READ_LATENCY, start);
+        }
+    }
+
+    private static List<AdminDashboard.Product> readFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Catalog file is truncated: " + path);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            return decode(mapped, path);
+        }
+    }
+
+    private static List<AdminDashboard.Product> decode(ByteBuffer buffer, Path path) throws IOException {
+        Columns columns = decodeColumns(buffer, path);
+        int count = columns.count;
+
+        // Decode every distinct string exactly once; products share the instances
+        int stringCount = columns.stringOffsets.length - 1;
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            int offset = columns.stringOffsets[i];
+            strings[i] = new String(columns.blob, offset, columns.stringOffsets[i + 1] - offset, StandardCharsets.UTF_8);
+        }
+
+        List<AdminDashboard.Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            AdminDashboard.Product product = new AdminDashboard.Product(columns.ids[i],
+                    string(strings, columns.nameRefs[i]), string(strings, columns.descriptionRefs[i]),
+                    columns.prices[i], columns.stock[i]);
+            product.setCategory(string(strings, columns.categoryRefs[i]));
+            product.setVersion(columns.versions[i]);
+            products.add(product);
+        }
+        return products;
+    }
+
+    // Read the catalog into a ProductStore: the columns and the UTF-8 string blob are taken
+    // over as they are, so no Product or String objects are created per product
+    public static ProductStore readStore(Path path) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Catalog file is truncated: " + path);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            Columns columns = decodeColumns(mapped, path);
+
+            long[] priceCents = new long[columns.count];
+            for (int i = 0; i < columns.count; i++) {
+                priceCents[i] = Money.toMinor(columns.prices[i]);
+            }
+            return ProductStore.fromColumns(columns.count, columns.ids, priceCents, columns.stock,
+                    columns.nameRefs, columns.descriptionRefs, columns.categoryRefs,
+                    columns.blob, columns.stringOffsets, columns.versions, columns.sequence);
+        } finally {
+            MetricsRegistry.recordSince(READ_LATENCY, start);
+        }
+    }
+
+    // Checks the size and checksum, then copies the body out into arrays
+    private static Columns decodeColumns(ByteBuffer buffer, Path path) throws IOException {
+        Header header = readHeader(buffer, path);
+        int count = header.productCount;
+        int stringCount = header.stringCount;
+
+        long expected = HEADER_BYTES + bodyBytes(count, stringCount, header.stringBlobBytes, header.flags);
+        if (buffer.capacity() < expected) {
+            throw new IOException("Catalog file is truncated: " + path);
+        }
+
+        ByteBuffer body = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        body.position(HEADER_BYTES).limit((int) expected);
+        CRC32 crc = new CRC32();
+        crc.update(body.slice());
+        if ((int) crc.getValue() != header.crc) {
+            throw new IOException("Catalog checksum mismatch: " + path);
+        }
+
+        body.position(HEADER_BYTES);
+        Columns columns = new Columns(count, stringCount, header.stringBlobBytes);
+        body.asDoubleBuffer().get(columns.prices);
+        body.position(body.position() + count * 8);
+        readInts(body, columns.ids);
+        readInts(body, columns.stock);
+        readInts(body, columns.nameRefs);
+        readInts(body, columns.descriptionRefs);
+        readInts(body, columns.categoryRefs);
+        readInts(body, columns.stringOffsets);
+        body.get(columns.blob);
+        if ((header.flags & FLAG_VERSIONED) != 0) {
+            columns.sequence = body.getLong();
+            body.asLongBuffer().get(columns.versions);
+        }
+        return columns;
+    }
+
+    private static long bodyBytes(int count, int stringCount, int blobBytes, short flags) {
+        long bytes = (long) count * (8 + 5 * 4) + (long) (stringCount + 1) * 4 + blobBytes;
+        if ((flags & FLAG_VERSIONED) != 0) {
+            bytes += 8 + (long) count * 8;
+        }
+        return bytes;
+    }
+
+    private static void readInts(ByteBuffer body, int[] target) {
+        body.asIntBuffer().get(target);
+        body.position(body.position() + target.length * 4);
+    }
+
+    private static String string(String[] strings, int ref) {
+        return ref == NULL_REF ? null : strings[ref];
+    }
+
+    // Cheap check used by loaders and the migrator
+    public static boolean isCatalogFile(Path path) throws IOException {
+        if (!Files.exists(path) || Files.size(path) < 4) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // keep reading until 4 bytes or EOF
+            }
+            return magic.position() == 4 && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    // Read only the fixed-size header (no mapping of the body)
+    public static Header readHeader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the header is complete or EOF
+            }
+            if (buffer.hasRemaining()) {
+                throw new IOException("Catalog file is truncated: " + path);
+            }
+            buffer.flip();
+            return readHeader(buffer, path);
+        }
+    }
+
+    private static Header readHeader(ByteBuffer buffer, Path path) throws IOException {
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a product catalog file: " + path);
+        }
+        short version = buffer.getShort(4);
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported catalog version " + version + " in " + path);
+        }
+        // Version 1 defined no flags
+        short flags = version == 1 ? 0 : buffer.getShort(6);
+        return new Header(version, flags, buffer.getInt(8), buffer.getInt(12), buffer.getInt(16),
+                buffer.getInt(20));
+    }
+
+    // The file body as arrays
+    private static final class Columns {
+        private final int count;
+        private final double[] prices;
+        private final int[] ids;
+        private final int[] stock;
+        private final int[] nameRefs;
+        private final int[] descriptionRefs;
+        private final int[] categoryRefs;
+        private final int[] stringOffsets;
+        private final byte[] blob;
+        private final long[] versions;
+        private long sequence;
+
+        private Columns(int count, int stringCount, int blobBytes) {
+            this.count = count;
+            this.prices = new double[count];
+            this.ids = new int[count];
+            this.stock = new int[count];
+            this.nameRefs = new int[count];
+            this.descriptionRefs = new int[count];
+            this.categoryRefs = new int[count];
+            this.stringOffsets = new int[stringCount + 1];
+            this.blob = new byte[blobBytes];
+            this.versions = new long[count];
+        }
+    }
+
+    // Catalog file header
+    public static final class Header {
+        private final short version;
+        private final short flags;
+        private final int productCount;
+        private final int stringCount;
+        private final int stringBlobBytes;
+        private final int crc;
+
+        private Header(short version, short flags, int productCount, int stringCount, int stringBlobBytes, int crc) {
+            this.version = version;
+            this.flags = flags;
+            this.productCount = productCount;
+            this.stringCount = stringCount;
+            this.stringBlobBytes = stringBlobBytes;
+            this.crc = crc;
+        }
+
+        public short getVersion() { return version; }
+        public short getFlags() { return flags; }
+        public int getProductCount() { return productCount; }
+        public int getStringCount() { return stringCount; }
+        public int getStringBlobBytes() { return stringBlobBytes; }
+        public int getCrc() { return crc; }
+    }
+}
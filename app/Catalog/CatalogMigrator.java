@@ -0,0 +1,66 @@
+// CatalogMigrator.java
+package com.lude.app.Catalog;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamConstants;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import com.lude.app.AdminDashboard;
+import com.lude.app.Logging.Log;
+import com.lude.app.Logging.Logger;
+
+// One-shot converter from the old Java-serialized products.dat to the CatalogFile format.
+// The original file is kept next to it with a ".bak" suffix.
+public final class CatalogMigrator {
+
+    private static final Logger LOG = Log.get(CatalogMigrator.class);
+
+    private CatalogMigrator() {
+    }
+
+    // Returns true if the file was in the old format and has been converted
+    @SuppressWarnings("unchecked")
+    public static boolean migrateIfNeeded(Path path) throws IOException {
+        if (!isJavaSerialized(path)) {
+            return false;
+        }
+
+        List<AdminDashboard.Product> products;
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            products = (List<AdminDashboard.Product>) ois.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Failed to read legacy product file " + path + ": " + e.getMessage(), e);
+        }
+
+        Path backup = path.resolveSibling(path.getFileName() + ".bak");
+        Files.copy(path, backup, StandardCopyOption.REPLACE_EXISTING);
+        CatalogFile.write(path, products);
+        LOG.info("Migrated legacy product file", "file", path, "products", products.size(), "backup", backup);
+        return true;
+    }
+
+    private static boolean isJavaSerialized(Path path) throws IOException {
+        if (!Files.exists(path) || Files.size(path) < 2) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            short magic = new DataInputStream(in).readShort();
+            return magic == ObjectStreamConstants.STREAM_MAGIC;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path path = Paths.get(args.length > 0 ? args[0] : "products.dat");
+        if (!migrateIfNeeded(path)) {
+            System.out.println(path + " is already in catalog format or does not exist.");
+        }
+    }
+}
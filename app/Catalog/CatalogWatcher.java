@@ -0,0 +1,201 @@
+// CatalogWatcher.java
+package com.lude.app.Catalog;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+import com.lude.app.Logging.Log;
+import com.lude.app.Logging.Logger;
+
+// Watches the catalog file and its change log (VersionedCatalog) and reports only real
+// content changes. The watcher thread blocks on the WatchService, so an unchanged catalog
+// costs no I/O. When an event arrives it checks size/mtime of both files, then the catalog
+// header checksum, and only then reads the catalog and diffs it against the last snapshot.
+// The snapshot is a ProductStore (about 70 bytes per product, on top of the caller's own
+// list); reloads read straight into a store, so a reload builds Product objects only for
+// changed rows.
+public class CatalogWatcher implements AutoCloseable {
+
+    private static final Logger LOG = Log.get(CatalogWatcher.class);
+
+    public interface Listener {
+        void onCatalogChanged(CatalogDiff diff);
+    }
+
+    // Writers emit several events per save (temp file, move); wait for them to settle
+    private static final long SETTLE_MILLIS = 150;
+
+    private final Path file;
+    private final Path fileName;
+    private final Path logFileName;
+    private final Listener listener;
+    private ProductStore snapshot = new ProductStore(0);
+
+    private WatchService watchService;
+    private Thread thread;
+    private volatile boolean running;
+
+    // Last fingerprint of the file
+    private long lastSize = -1;
+    private long lastModified = -1;
+    private long lastLogSize = -1;
+    private long lastLogModified = -1;
+    private int lastCrc;
+    private boolean haveCrc;
+
+    public CatalogWatcher(Path file, Listener listener) {
+        this.file = file.toAbsolutePath();
+        this.fileName = this.file.getFileName();
+        this.logFileName = VersionedCatalog.logFileFor(this.file).getFileName();
+        this.listener = listener;
+    }
+
+    // Start watching; shown is what the caller currently shows, and becomes the watcher's
+    // snapshot, so pass a copy (ProductStoreList.snapshot())
+    public synchronized void start(ProductStore shown) throws IOException {
+        if (running) {
+            return;
+        }
+        snapshot = shown;
+        rememberFingerprint();
+
+        watchService = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+
+        running = true;
+        thread = new Thread(this::watchLoop, "catalog-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watchLoop() {
+        while (running) {
+            try {
+                WatchKey key = watchService.take();
+                boolean relevant = drain(key);
+
+                // Coalesce bursts of events from a single save
+                WatchKey more;
+                while ((more = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    relevant |= drain(more);
+                }
+
+                if (relevant) {
+                    checkForChanges();
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            } catch (Exception e) {
+                LOG.error("Catalog watcher error", e, "file", file);
+            }
+        }
+    }
+
+    private boolean drain(WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || fileName.equals(event.context()) || logFileName.equals(event.context())) {
+                relevant = true;
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+
+    private void checkForChanges() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        Path logFile = VersionedCatalog.logFileFor(file);
+        long logSize = -1;
+        long logModified = -1;
+        if (Files.exists(logFile)) {
+            BasicFileAttributes logAttributes = Files.readAttributes(logFile, BasicFileAttributes.class);
+            logSize = logAttributes.size();
+            logModified = logAttributes.lastModifiedTime().toMillis();
+        }
+        boolean fileChanged = size != lastSize || modified != lastModified;
+        boolean logChanged = logSize != lastLogSize || logModified != lastLogModified;
+        if (!fileChanged && !logChanged) {
+            return;
+        }
+
+        // Legacy files are converted first; the rewrite triggers another event
+        if (fileChanged && CatalogMigrator.migrateIfNeeded(file)) {
+            return;
+        }
+
+        lastSize = size;
+        lastModified = modified;
+        lastLogSize = logSize;
+        lastLogModified = logModified;
+        if (fileChanged) {
+            int crc = CatalogFile.readHeader(file).getCrc();
+            boolean touchedOnly = haveCrc && crc == lastCrc;
+            lastCrc = crc;
+            haveCrc = true;
+            if (touchedOnly && !logChanged) {
+                return; // touched but not changed
+            }
+        }
+
+        ProductStore current = VersionedCatalog.readStore(file);
+        CatalogDiff diff = CatalogDiff.between(snapshot, current);
+        snapshot = current;
+        if (!diff.isEmpty()) {
+            listener.onCatalogChanged(diff);
+        }
+    }
+
+    private void rememberFingerprint() {
+        try {
+            if (Files.exists(file) && CatalogFile.isCatalogFile(file)) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                lastSize = attributes.size();
+                lastModified = attributes.lastModifiedTime().toMillis();
+                lastCrc = CatalogFile.readHeader(file).getCrc();
+                haveCrc = true;
+            }
+            Path logFile = VersionedCatalog.logFileFor(file);
+            if (Files.exists(logFile)) {
+                BasicFileAttributes attributes = Files.readAttributes(logFile, BasicFileAttributes.class);
+                lastLogSize = attributes.size();
+                lastLogModified = attributes.lastModifiedTime().toMillis();
+            }
+        } catch (IOException e) {
+            LOG.warn("Could not read catalog fingerprint", e, "file", file);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOG.warn("Error closing catalog watcher", e, "file", file);
+            }
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+}
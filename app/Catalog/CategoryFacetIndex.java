@@ -0,0 +1,200 @@
+// CategoryFacetIndex.java
+package com.lude.app.Catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+import com.lude.app.AdminDashboard;
+import javafx.collections.ListChangeListener;
+
+// Category -> product bitmap index for faceted browsing.
+//
+// Every product gets a slot (assigned in catalog order); each category keeps a BitSet
+// of its slots and a running count. Filtering by one category is a walk over one
+// bitmap, and a union across categories is a BitSet or.
+// Removed slots are cleared and reclaimed by compaction once a quarter are dead.
+// Slots hold product ids; like ProductSearchIndex, a bound index looks the products up in
+// its ProductStoreList, so filter on the FX thread.
+public final class CategoryFacetIndex {
+
+    // Product id per slot
+    private int[] slots = new int[16];
+    private int slotCount;
+    // Category captured when the slot was filled, so a later in-place edit can't desync the bitmaps
+    private final List<String> slotCategories = new ArrayList<>();
+    private final Map<Integer, Integer> slotByProductId = new HashMap<>();
+    private final Map<String, BitSet> bitmaps = new HashMap<>();
+    private final Map<String, Integer> counts = new HashMap<>();
+    private int deadSlots;
+    // Finds a product by id; backed by ownProducts unless the index is bound to a list
+    private final IntFunction<AdminDashboard.Product> products;
+    private final Map<Integer, AdminDashboard.Product> ownProducts;
+
+    public CategoryFacetIndex() {
+        this.ownProducts = new HashMap<>();
+        this.products = ownProducts::get;
+    }
+
+    public CategoryFacetIndex(Collection<AdminDashboard.Product> products) {
+        this();
+        rebuild(products);
+    }
+
+    private CategoryFacetIndex(IntFunction<AdminDashboard.Product> products) {
+        this.ownProducts = null;
+        this.products = products;
+    }
+
+    // Index a product list and keep the index in step with every later change to it
+    public static CategoryFacetIndex bindTo(ProductStoreList products) {
+        CategoryFacetIndex index = new CategoryFacetIndex(products::getById);
+        index.rebuild(products);
+        products.addListener((ListChangeListener<AdminDashboard.Product>) change -> {
+            while (change.next()) {
+                if (change.wasPermutated()) {
+                    continue;
+                }
+                for (AdminDashboard.Product removed : change.getRemoved()) {
+                    index.remove(removed.getId());
+                }
+                for (AdminDashboard.Product added : change.getAddedSubList()) {
+                    index.add(added);
+                }
+            }
+        });
+        return index;
+    }
+
+    public synchronized void rebuild(Collection<AdminDashboard.Product> products) {
+        clear();
+        if (ownProducts != null) {
+            ownProducts.clear();
+        }
+        for (AdminDashboard.Product product : products) {
+            addProduct(product);
+        }
+    }
+
+    public synchronized void add(AdminDashboard.Product product) {
+        removeSlot(product.getId());
+        addProduct(product);
+        compactIfNeeded();
+    }
+
+    public synchronized void remove(int productId) {
+        removeSlot(productId);
+        compactIfNeeded();
+    }
+
+    // Product count per category, sorted by category name
+    public synchronized Map<String, Integer> getCounts() {
+        return new TreeMap<>(counts);
+    }
+
+    public synchronized int count(String category) {
+        return counts.getOrDefault(category, 0);
+    }
+
+    // Products in one category, in catalog order
+    public synchronized List<AdminDashboard.Product> filter(String category) {
+        BitSet bitmap = bitmaps.get(category);
+        return bitmap == null ? new ArrayList<>() : productsFor(bitmap);
+    }
+
+    // Products in any of the categories
+    public synchronized List<AdminDashboard.Product> union(Collection<String> categories) {
+        BitSet result = new BitSet(slotCount);
+        for (String category : categories) {
+            BitSet bitmap = bitmaps.get(category);
+            if (bitmap != null) {
+                result.or(bitmap);
+            }
+        }
+        return productsFor(result);
+    }
+
+    private List<AdminDashboard.Product> productsFor(BitSet bitmap) {
+        List<AdminDashboard.Product> result = new ArrayList<>(bitmap.cardinality());
+        for (int slot = bitmap.nextSetBit(0); slot >= 0; slot = bitmap.nextSetBit(slot + 1)) {
+            AdminDashboard.Product product = products.apply(slots[slot]);
+            if (product != null) {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+
+    private void clear() {
+        slotCount = 0;
+        slotCategories.clear();
+        slotByProductId.clear();
+        bitmaps.clear();
+        counts.clear();
+        deadSlots = 0;
+    }
+
+    private void addProduct(AdminDashboard.Product product) {
+        if (ownProducts != null) {
+            ownProducts.put(product.getId(), product);
+        }
+        addSlot(product.getId(), product.getCategory().intern());
+    }
+
+    private void addSlot(int productId, String category) {
+        int slot = slotCount++;
+        if (slot == slots.length) {
+            slots = Arrays.copyOf(slots, slot * 2);
+        }
+        slots[slot] = productId;
+        slotCategories.add(category);
+        slotByProductId.put(productId, slot);
+        bitmaps.computeIfAbsent(category, c -> new BitSet()).set(slot);
+        counts.merge(category, 1, Integer::sum);
+    }
+
+    private void removeSlot(int productId) {
+        Integer slot = slotByProductId.remove(productId);
+        if (ownProducts != null) {
+            ownProducts.remove(productId);
+        }
+        if (slot == null) {
+            return;
+        }
+        String category = slotCategories.get(slot);
+        BitSet bitmap = bitmaps.get(category);
+        if (bitmap != null) {
+            bitmap.clear(slot);
+        }
+        if (counts.merge(category, -1, Integer::sum) <= 0) {
+            counts.remove(category);
+            bitmaps.remove(category);
+        }
+        slotCategories.set(slot, null);
+        deadSlots++;
+    }
+
+    private void compactIfNeeded() {
+        if (deadSlots > 64 && deadSlots * 4 > slotCount) {
+            // Re-slot the live ids with the categories they were indexed under
+            int[] liveIds = new int[slotCount - deadSlots];
+            List<String> liveCategories = new ArrayList<>(liveIds.length);
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (slotCategories.get(slot) != null) {
+                    liveIds[liveCategories.size()] = slots[slot];
+                    liveCategories.add(slotCategories.get(slot));
+                }
+            }
+            clear();
+            for (int i = 0; i < liveIds.length; i++) {
+                addSlot(liveIds[i], liveCategories.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+// ProductChangeLog.java
+package com.lude.app.Catalog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import com.lude.app.AdminDashboard;
+import com.lude.app.Pricing.Money;
+
+// Append-only log of product changes made on top of a catalog file (see VersionedCatalog).
+//
+// Layout (little endian):
+//   header   int magic "NEPL", short version, short flags, long baseSequence
+//   records  int payloadBytes, int crc32(payload), payload
+//   payload  byte op, long sequence, int productId, long version
+//            PUT only: long priceCents, int stock, then name, category, description
+//            each as int byteLength (-1 = null) + UTF-8 bytes
+//
+// baseSequence is the catalog file's sequence when the log was started; records carry
+// their own sequence, and replay skips any already folded into the catalog file. A record
+// whose length runs past the end or whose checksum fails ends the valid part of the log:
+// it is either still being written by another process or was torn by a crash.
+final class ProductChangeLog {
+
+    static final int MAGIC = 0x4C50454E; // "NEPL" read as little endian
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    static final byte OP_PUT = 1;
+    static final byte OP_DELETE = 2;
+
+    private ProductChangeLog() {
+    }
+
+    // One change; for a DELETE only op, sequence, productId and version are set
+    static final class Change {
+        final byte op;
+        final long sequence;
+        final int productId;
+        final long version;
+        final long priceCents;
+        final int stock;
+        final String name;
+        final String category;
+        final String description;
+
+        private Change(byte op, long sequence, int productId, long version, long priceCents, int stock,
+                       String name, String category, String description) {
+            this.op = op;
+            this.sequence = sequence;
+            this.productId = productId;
+            this.version = version;
+            this.priceCents = priceCents;
+            this.stock = stock;
+            this.name = name;
+            this.category = category;
+            this.description = description;
+        }
+
+        static Change put(long sequence, AdminDashboard.Product product) {
+            return new Change(OP_PUT, sequence, product.getId(), sequence, Money.toMinor(product.getPrice()),
+                    product.getStock(), product.getName(), product.getCategory(), product.getDescription());
+        }
+
+        static Change delete(long sequence, int productId) {
+            return new Change(OP_DELETE, sequence, productId, sequence, 0, 0, null, null, null);
+        }
+
+        AdminDashboard.Product toProduct() {
+            AdminDashboard.Product product = new AdminDashboard.Product(
+                    productId, name, description, Money.toMajor(priceCents), stock);
+            product.setCategory(category);
+            product.setVersion(version);
+            return product;
+        }
+    }
+
+    // What read() found: the header's base sequence, the whole records from the requested
+    // offset, and where the valid part of the file ends
+    static final class Tail {
+        final long baseSequence;
+        final List<Change> changes;
+        final long validBytes;
+
+        private Tail(long baseSequence, List<Change> changes, long validBytes) {
+            this.baseSequence = baseSequence;
+            this.changes = changes;
+            this.validBytes = validBytes;
+        }
+    }
+
+    // Null if there is no log, or it is not one (callers then start a new one)
+    static Tail read(Path path, long fromOffset) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                return null;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, 0);
+            if (header.getInt(0) != MAGIC || header.getShort(4) != VERSION) {
+                return null;
+            }
+            long baseSequence = header.getLong(8);
+
+            long start = Math.max(fromOffset, HEADER_BYTES);
+            if (start > size) {
+                // Shorter than what was read before: replaced underneath us
+                return null;
+            }
+            ByteBuffer body = ByteBuffer.allocate((int) (size - start)).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, body, start);
+            body.flip();
+
+            List<Change> changes = new ArrayList<>();
+            long valid = start;
+            CRC32 crc = new CRC32();
+            while (body.remaining() >= RECORD_HEADER_BYTES) {
+                int payloadBytes = body.getInt(body.position());
+                int expectedCrc = body.getInt(body.position() + 4);
+                if (payloadBytes <= 0 || payloadBytes > body.remaining() - RECORD_HEADER_BYTES) {
+                    break;
+                }
+                crc.reset();
+                crc.update(body.array(), body.position() + RECORD_HEADER_BYTES, payloadBytes);
+                if ((int) crc.getValue() != expectedCrc) {
+                    break;
+                }
+                body.position(body.position() + RECORD_HEADER_BYTES);
+                changes.add(decode(body));
+                valid += RECORD_HEADER_BYTES + payloadBytes;
+            }
+            return new Tail(baseSequence, changes, valid);
+        }
+    }
+
+    // Start a new, empty log (temp file + atomic move, so readers see the old log or the new one)
+    static void reset(Path path, long baseSequence) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(baseSequence);
+        header.flip();
+        Path absolute = path.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            channel.force(false);
+        }
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Write the records at validBytes (cutting off any torn tail) and force them to disk;
+    // returns the new end of the log. The caller holds the catalog's write lock.
+    static long append(Path path, long validBytes, List<Change> changes) throws IOException {
+        List<byte[]> payloads = new ArrayList<>(changes.size());
+        int total = 0;
+        for (Change change : changes) {
+            byte[] payload = encode(change);
+            payloads.add(payload);
+            total += RECORD_HEADER_BYTES + payload.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(total).order(ByteOrder.LITTLE_ENDIAN);
+        CRC32 crc = new CRC32();
+        for (byte[] payload : payloads) {
+            crc.reset();
+            crc.update(payload);
+            buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        }
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            if (channel.size() > validBytes) {
+                channel.truncate(validBytes);
+            }
+            long position = validBytes;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            channel.force(false);
+            return position;
+        }
+    }
+
+    private static byte[] encode(Change change) {
+        byte[] name = bytes(change.name);
+        byte[] category = bytes(change.category);
+        byte[] description = bytes(change.description);
+        int size = 1 + 8 + 4 + 8;
+        if (change.op == OP_PUT) {
+            size += 8 + 4 + 3 * 4 + length(name) + length(category) + length(description);
+        }
+        ByteBuffer payload = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        payload.put(change.op).putLong(change.sequence).putInt(change.productId).putLong(change.version);
+        if (change.op == OP_PUT) {
+            payload.putLong(change.priceCents).putInt(change.stock);
+            putString(payload, name);
+            putString(payload, category);
+            putString(payload, description);
+        }
+        return payload.array();
+    }
+
+    private static Change decode(ByteBuffer payload) throws IOException {
+        byte op = payload.get();
+        long sequence = payload.getLong();
+        int productId = payload.getInt();
+        long version = payload.getLong();
+        if (op == OP_DELETE) {
+            return new Change(op, sequence, productId, version, 0, 0, null, null, null);
+        }
+        if (op != OP_PUT) {
+            throw new IOException("Unknown product change op " + op);
+        }
+        long priceCents = payload.getLong();
+        int stock = payload.getInt();
+        String name = getString(payload);
+        String category = getString(payload);
+        String description = getString(payload);
+        return new Change(op, sequence, productId, version, priceCents, stock, name, category, description);
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+    }
+}
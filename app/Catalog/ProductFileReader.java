@@ -0,0 +1,360 @@
+// ProductFileReader.java
+package com.lude.app.Catalog;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Streaming reader for supplier catalog files, one raw row at a time.
+//
+// Two formats, picked by file extension:
+//   .csv   header line with column names, then RFC 4180 rows (quoted fields may contain
+//          commas, doubled quotes and line breaks)
+//   .json  a top-level array of flat objects, or one object per line (NDJSON)
+// Column/key names are matched case-insensitively against Field; unknown ones are ignored.
+// Values are returned as text, unvalidated. Only the current row is held in memory, so
+// file size doesn't matter.
+public abstract class ProductFileReader implements AutoCloseable {
+
+    public enum Field {
+        ID, NAME, CATEGORY, PRICE, STOCK, DESCRIPTION;
+
+        static Field forName(String name) {
+            String key = name.trim().toLowerCase(Locale.ROOT);
+            for (Field field : values()) {
+                if (field.name().toLowerCase(Locale.ROOT).equals(key)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+    }
+
+    // One row as read; get() is null for a missing value
+    public static class RawRow {
+        private final long line;
+        private final String[] values = new String[Field.values().length];
+
+        RawRow(long line) {
+            this.line = line;
+        }
+
+        public long getLine() { return line; }
+
+        public String get(Field field) {
+            return values[field.ordinal()];
+        }
+
+        void set(Field field, String value) {
+            values[field.ordinal()] = value;
+        }
+    }
+
+    private final CountingInputStream counter;
+    protected final BufferedReader in;
+    private final long totalBytes;
+    // 1-based line of the character most recently read
+    protected long line = 1;
+
+    protected ProductFileReader(Path file) throws IOException {
+        this.totalBytes = Files.size(file);
+        this.counter = new CountingInputStream(Files.newInputStream(file));
+        this.in = new BufferedReader(new InputStreamReader(counter, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    public static ProductFileReader open(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return new CsvReader(file);
+        }
+        if (name.endsWith(".json") || name.endsWith(".ndjson")) {
+            return new JsonReader(file);
+        }
+        throw new IOException("Unsupported file type (expected .csv or .json): " + file.getFileName());
+    }
+
+    // Next row, or null at the end of the file
+    public abstract RawRow next() throws IOException;
+
+    // Bytes consumed so far (read ahead by the buffer), for progress
+    public long getBytesRead() {
+        return counter.count;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    protected int read() throws IOException {
+        int c = in.read();
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private static final class CsvReader extends ProductFileReader {
+        private final Field[] columns;
+        private final StringBuilder field = new StringBuilder();
+        private boolean endOfFile;
+
+        private CsvReader(Path file) throws IOException {
+            super(file);
+            String[] header = readRecord();
+            if (header == null) {
+                throw new IOException("CSV file is empty");
+            }
+            if (header.length > 0 && header[0].startsWith("\uFEFF")) {
+                header[0] = header[0].substring(1);
+            }
+            columns = new Field[header.length];
+            boolean hasName = false;
+            for (int i = 0; i < header.length; i++) {
+                columns[i] = Field.forName(header[i]);
+                hasName |= columns[i] == Field.NAME;
+            }
+            if (!hasName) {
+                throw new IOException("CSV header has no 'name' column");
+            }
+        }
+
+        @Override
+        public RawRow next() throws IOException {
+            while (true) {
+                long startLine = line;
+                String[] record = readRecord();
+                if (record == null) {
+                    return null;
+                }
+                if (record.length == 1 && record[0].isEmpty()) {
+                    continue; // blank line
+                }
+                RawRow row = new RawRow(startLine);
+                for (int i = 0; i < record.length && i < columns.length; i++) {
+                    if (columns[i] != null && !record[i].isEmpty()) {
+                        row.set(columns[i], record[i]);
+                    }
+                }
+                return row;
+            }
+        }
+
+        // Fields of the next record, or null at the end of the file
+        private String[] readRecord() throws IOException {
+            if (endOfFile) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>(columns == null ? 8 : columns.length);
+            field.setLength(0);
+            boolean quoted = false;
+            boolean any = false;
+            while (true) {
+                int c = read();
+                if (c == -1) {
+                    endOfFile = true;
+                    if (!any && fields.isEmpty()) {
+                        return null;
+                    }
+                    if (quoted) {
+                        throw new IOException("Unterminated quoted field at line " + line);
+                    }
+                    fields.add(field.toString());
+                    return fields.toArray(new String[0]);
+                }
+                any = true;
+                if (quoted) {
+                    if (c == '"') {
+                        in.mark(1);
+                        if (in.read() == '"') {
+                            field.append('"');
+                        } else {
+                            in.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    fields.add(field.toString());
+                    return fields.toArray(new String[0]);
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+        }
+    }
+
+    private static final class JsonReader extends ProductFileReader {
+        private final StringBuilder text = new StringBuilder();
+
+        private JsonReader(Path file) throws IOException {
+            super(file);
+        }
+
+        @Override
+        public RawRow next() throws IOException {
+            // Skip whatever separates objects: whitespace, '[', ',' and the closing ']'
+            int c;
+            do {
+                c = read();
+            } while (c != -1 && c != '{' && (Character.isWhitespace(c) || c == '[' || c == ',' || c == ']' || c == '\uFEFF'));
+            if (c == -1) {
+                return null;
+            }
+            if (c != '{') {
+                throw error("Expected '{' but found '" + (char) c + "'");
+            }
+            RawRow row = new RawRow(line);
+            c = skipWhitespace();
+            if (c == '}') {
+                return row;
+            }
+            while (true) {
+                if (c != '"') {
+                    throw error("Expected a quoted key");
+                }
+                String key = readString();
+                if (skipWhitespace() != ':') {
+                    throw error("Expected ':' after key \"" + key + "\"");
+                }
+                String value = readValue(skipWhitespace());
+                Field field = Field.forName(key);
+                if (field != null && value != null) {
+                    row.set(field, value);
+                }
+                c = skipWhitespace();
+                if (c == '}') {
+                    return row;
+                }
+                if (c != ',') {
+                    throw error("Expected ',' or '}' in object");
+                }
+                c = skipWhitespace();
+            }
+        }
+
+        private int skipWhitespace() throws IOException {
+            int c;
+            do {
+                c = read();
+            } while (c != -1 && Character.isWhitespace(c));
+            return c;
+        }
+
+        // Scalar value as text (null for JSON null); c is its first character
+        private String readValue(int c) throws IOException {
+            if (c == '"') {
+                return readString();
+            }
+            if (c == '{' || c == '[') {
+                throw error("Nested objects and arrays are not supported");
+            }
+            text.setLength(0);
+            while (c != -1 && c != ',' && c != '}' && !Character.isWhitespace(c)) {
+                text.append((char) c);
+                in.mark(1);
+                c = in.read();
+            }
+            if (c != -1) {
+                in.reset();
+            }
+            String literal = text.toString();
+            if (literal.isEmpty()) {
+                throw error("Missing value");
+            }
+            return "null".equals(literal) ? null : literal;
+        }
+
+        // Reads after the opening quote, through the closing one
+        private String readString() throws IOException {
+            text.setLength(0);
+            while (true) {
+                int c = read();
+                if (c == -1) {
+                    throw error("Unterminated string");
+                }
+                if (c == '"') {
+                    return text.toString();
+                }
+                if (c != '\\') {
+                    text.append((char) c);
+                    continue;
+                }
+                int escaped = read();
+                switch (escaped) {
+                    case '"': case '\\': case '/': text.append((char) escaped); break;
+                    case 'b': text.append('\b'); break;
+                    case 'f': text.append('\f'); break;
+                    case 'n': text.append('\n'); break;
+                    case 'r': text.append('\r'); break;
+                    case 't': text.append('\t'); break;
+                    case 'u':
+                        char[] hex = new char[4];
+                        for (int i = 0; i < 4; i++) {
+                            int h = read();
+                            if (h == -1) {
+                                throw error("Unterminated \\u escape");
+                            }
+                            hex[i] = (char) h;
+                        }
+                        try {
+                            text.append((char) Integer.parseInt(new String(hex), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Bad \\u escape");
+                        }
+                        break;
+                    default:
+                        throw error("Bad escape character");
+                }
+            }
+        }
+
+        private IOException error(String message) {
+            return new IOException(message + " at line " + line);
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private volatile long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
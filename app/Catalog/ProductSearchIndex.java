@@ -0,0 +1,419 @@
+// ProductSearchIndex.java
+package com.lude.app.Catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+
+import com.lude.app.AdminDashboard;
+import javafx.collections.ListChangeListener;
+
+// In-memory inverted index over product name, category and description.
+//
+// Text is split into lowercase alphanumeric tokens once, when a product is indexed.
+// Each term maps to a postings list of internal document ids (always appended in
+// increasing order, so lists stay sorted) with a per-document field weight.
+// The term dictionary is a sorted map, so every query token is matched as a prefix
+// ("lap" finds "laptop") by walking one contiguous key range.
+//
+// A product matches when every query token matches one of its terms. Results are
+// ranked by summed field weight (name > category > description), with a bonus for
+// whole-term matches, then by catalog order.
+//
+// Removals tombstone the document; the index compacts itself once a quarter of
+// the documents are dead.
+//
+// Documents hold product ids, not products. A standalone index keeps the products it was
+// given; one bound to a ProductStoreList looks results up in the list, so call search()
+// on the FX thread, or searchIds() elsewhere and resolve() the ids on the FX thread.
+public final class ProductSearchIndex {
+
+    private static final int NAME_WEIGHT = 8;
+    private static final int CATEGORY_WEIGHT = 4;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int EXACT_TERM_BONUS = 2;
+    // Poll the cancellation flag every 4096 postings
+    private static final int CANCEL_CHECK_MASK = 4095;
+
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    // Product id per document
+    private int[] documents = new int[16];
+    private int documentCount;
+    private final Map<Integer, Integer> documentByProductId = new HashMap<>();
+    // Finds a product by id; backed by ownProducts unless the index is bound to a list
+    private final IntFunction<AdminDashboard.Product> products;
+    private final Map<Integer, AdminDashboard.Product> ownProducts;
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+
+    // Scratch space reused by search(); sized to the document count
+    private int[] hitCounts = new int[0];
+    private int[] scores = new int[0];
+    private int[] touched = new int[0];
+
+    public ProductSearchIndex() {
+        this.ownProducts = new HashMap<>();
+        this.products = ownProducts::get;
+    }
+
+    public ProductSearchIndex(Collection<AdminDashboard.Product> products) {
+        this();
+        rebuild(products);
+    }
+
+    private ProductSearchIndex(IntFunction<AdminDashboard.Product> products) {
+        this.ownProducts = null;
+        this.products = products;
+    }
+
+    // Index a product list and keep the index in step with every later change to it
+    public static ProductSearchIndex bindTo(ProductStoreList products) {
+        ProductSearchIndex index = new ProductSearchIndex(products::getById);
+        index.rebuild(products);
+        products.addListener((ListChangeListener<AdminDashboard.Product>) change -> {
+            while (change.next()) {
+                if (change.wasPermutated()) {
+                    continue;
+                }
+                for (AdminDashboard.Product removed : change.getRemoved()) {
+                    index.remove(removed.getId());
+                }
+                for (AdminDashboard.Product added : change.getAddedSubList()) {
+                    index.add(added);
+                }
+            }
+        });
+        return index;
+    }
+
+    // Replace the whole index
+    public synchronized void rebuild(Collection<AdminDashboard.Product> products) {
+        terms.clear();
+        documentCount = 0;
+        documentByProductId.clear();
+        if (ownProducts != null) {
+            ownProducts.clear();
+        }
+        deleted.clear();
+        deletedCount = 0;
+        for (AdminDashboard.Product product : products) {
+            addDocument(product);
+        }
+    }
+
+    public synchronized void add(AdminDashboard.Product product) {
+        removeDocument(product.getId());
+        addDocument(product);
+        compactIfNeeded();
+    }
+
+    public synchronized void remove(int productId) {
+        removeDocument(productId);
+        compactIfNeeded();
+    }
+
+    // Re-index a product whose text changed (it moves to the end of the catalog order)
+    public synchronized void update(AdminDashboard.Product product) {
+        add(product);
+    }
+
+    public synchronized int size() {
+        return documentCount - deletedCount;
+    }
+
+    // All live products in catalog order
+    public synchronized List<AdminDashboard.Product> all() {
+        return resolve(liveIds(Integer.MAX_VALUE));
+    }
+
+    public List<AdminDashboard.Product> search(String query) {
+        return search(query, Integer.MAX_VALUE, () -> false);
+    }
+
+    public List<AdminDashboard.Product> search(String query, int limit) {
+        return search(query, limit, () -> false);
+    }
+
+    // Ranked products matching every token of the query; an empty query returns everything.
+    // cancelled is polled while scanning postings; if it turns true the search stops and returns null.
+    public synchronized List<AdminDashboard.Product> search(String query, int limit, BooleanSupplier cancelled) {
+        int[] ids = searchIds(query, limit, cancelled);
+        return ids == null ? null : resolve(ids);
+    }
+
+    // The products with these ids, in order, skipping any that are gone
+    public synchronized List<AdminDashboard.Product> resolve(int[] ids) {
+        List<AdminDashboard.Product> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            AdminDashboard.Product product = products.apply(id);
+            if (product != null) {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+
+    // search() without looking the products up: the ranked ids, or null if cancelled
+    public synchronized int[] searchIds(String query, int limit, BooleanSupplier cancelled) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return liveIds(limit);
+        }
+
+        ensureScratchCapacity();
+        int touchedCount = 0;
+
+        // Start with the most selective token so the candidate set is small from the outset
+        List<TokenRange> ranges = new ArrayList<>(queryTokens.size());
+        for (String token : queryTokens) {
+            ranges.add(new TokenRange(token, terms.subMap(token, true, token + Character.MAX_VALUE, false)));
+        }
+        ranges.sort((a, b) -> Long.compare(a.postingsCount, b.postingsCount));
+
+        for (int t = 0; t < ranges.size(); t++) {
+            TokenRange range = ranges.get(t);
+            // Few candidates left against long postings: probe the sorted lists instead of scanning them
+            boolean probe = t > 0 && (long) touchedCount * range.terms.size() * 16 < range.postingsCount;
+            for (Map.Entry<String, Postings> entry : range.terms.entrySet()) {
+                boolean exact = entry.getKey().length() == range.token.length();
+                Postings postings = entry.getValue();
+                if (probe) {
+                    for (int c = 0; c < touchedCount; c++) {
+                        int doc = touched[c];
+                        int i = hitCounts[doc] == t ? Arrays.binarySearch(postings.docs, 0, postings.size, doc) : -1;
+                        if (i >= 0) {
+                            hitCounts[doc] = t + 1;
+                            scores[doc] += exact ? postings.weights[i] * EXACT_TERM_BONUS : postings.weights[i];
+                        }
+                    }
+                    continue;
+                }
+                if (cancelled.getAsBoolean()) {
+                    resetScratch(touchedCount);
+                    return null;
+                }
+                for (int i = 0; i < postings.size; i++) {
+                    if ((i & CANCEL_CHECK_MASK) == CANCEL_CHECK_MASK && cancelled.getAsBoolean()) {
+                        resetScratch(touchedCount);
+                        return null;
+                    }
+                    int doc = postings.docs[i];
+                    // Only documents that matched every earlier token can still match;
+                    // each document is scored by its first (shortest) matching term per token
+                    if (hitCounts[doc] != t || deleted.get(doc)) {
+                        continue;
+                    }
+                    if (t == 0) {
+                        touched[touchedCount++] = doc;
+                    }
+                    hitCounts[doc] = t + 1;
+                    scores[doc] += exact ? postings.weights[i] * EXACT_TERM_BONUS : postings.weights[i];
+                }
+            }
+        }
+
+        int required = queryTokens.size();
+        int matched = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int doc = touched[i];
+            if (hitCounts[doc] == required) {
+                touched[matched++] = doc;
+            } else {
+                hitCounts[doc] = 0;
+                scores[doc] = 0;
+            }
+        }
+
+        // Sort matched docs by score desc, then doc order; pack both into one long per doc
+        long[] keys = new long[matched];
+        for (int i = 0; i < matched; i++) {
+            int doc = touched[i];
+            keys[i] = ((long) (Integer.MAX_VALUE - scores[doc]) << 32) | doc;
+            hitCounts[doc] = 0;
+            scores[doc] = 0;
+        }
+        Arrays.sort(keys);
+
+        int[] results = new int[Math.min(limit, matched)];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = documents[(int) keys[i]];
+        }
+        return results;
+    }
+
+    private int[] liveIds(int limit) {
+        int[] ids = new int[Math.min(limit, size())];
+        int count = 0;
+        for (int doc = 0; doc < documentCount && count < ids.length; doc++) {
+            if (!deleted.get(doc)) {
+                ids[count++] = documents[doc];
+            }
+        }
+        return ids;
+    }
+
+    private void resetScratch(int touchedCount) {
+        for (int i = 0; i < touchedCount; i++) {
+            hitCounts[touched[i]] = 0;
+            scores[touched[i]] = 0;
+        }
+    }
+
+    private void addDocument(AdminDashboard.Product product) {
+        int doc = documentCount++;
+        if (doc == documents.length) {
+            documents = Arrays.copyOf(documents, doc * 2);
+        }
+        documents[doc] = product.getId();
+        documentByProductId.put(product.getId(), doc);
+        if (ownProducts != null) {
+            ownProducts.put(product.getId(), product);
+        }
+
+        // Sum field weights per term for this document
+        Map<String, Integer> weights = new HashMap<>();
+        addField(weights, product.getName(), NAME_WEIGHT);
+        addField(weights, product.getCategory(), CATEGORY_WEIGHT);
+        addField(weights, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            terms.computeIfAbsent(entry.getKey(), k -> new Postings())
+                    .append(doc, (short) Math.min(Short.MAX_VALUE, entry.getValue()));
+        }
+    }
+
+    private static void addField(Map<String, Integer> weights, String text, int weight) {
+        for (String token : tokenize(text)) {
+            weights.merge(token, weight, Integer::sum);
+        }
+    }
+
+    private void removeDocument(int productId) {
+        Integer doc = documentByProductId.remove(productId);
+        if (ownProducts != null) {
+            ownProducts.remove(productId);
+        }
+        if (doc != null && !deleted.get(doc)) {
+            deleted.set(doc);
+            deletedCount++;
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (deletedCount > 64 && deletedCount * 4 > documentCount) {
+            compact();
+        }
+    }
+
+    // Drop dead documents and renumber the rest in order, so postings stay sorted;
+    // works on the ids alone, without looking products up
+    private void compact() {
+        int[] renumbered = new int[documentCount];
+        int live = 0;
+        for (int doc = 0; doc < documentCount; doc++) {
+            if (deleted.get(doc)) {
+                renumbered[doc] = -1;
+            } else {
+                renumbered[doc] = live;
+                documents[live++] = documents[doc];
+            }
+        }
+        documentCount = live;
+        for (Iterator<Postings> it = terms.values().iterator(); it.hasNext(); ) {
+            Postings postings = it.next();
+            int kept = 0;
+            for (int i = 0; i < postings.size; i++) {
+                int doc = renumbered[postings.docs[i]];
+                if (doc >= 0) {
+                    postings.docs[kept] = doc;
+                    postings.weights[kept] = postings.weights[i];
+                    kept++;
+                }
+            }
+            postings.size = kept;
+            if (kept == 0) {
+                it.remove();
+            }
+        }
+        documentByProductId.clear();
+        for (int doc = 0; doc < documentCount; doc++) {
+            documentByProductId.put(documents[doc], doc);
+        }
+        deleted.clear();
+        deletedCount = 0;
+    }
+
+    private void ensureScratchCapacity() {
+        int needed = documentCount;
+        if (hitCounts.length < needed) {
+            int capacity = Math.max(needed, hitCounts.length * 2);
+            hitCounts = new int[capacity];
+            scores = new int[capacity];
+            touched = new int[capacity];
+        }
+    }
+
+    // Lowercase alphanumeric tokens
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean letterOrDigit = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (letterOrDigit && start < 0) {
+                start = i;
+            } else if (!letterOrDigit && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // One query token and the dictionary range of terms it prefixes
+    private static final class TokenRange {
+        private final String token;
+        private final NavigableMap<String, Postings> terms;
+        private final long postingsCount;
+
+        private TokenRange(String token, NavigableMap<String, Postings> terms) {
+            this.token = token;
+            this.terms = terms;
+            long count = 0;
+            for (Postings postings : terms.values()) {
+                count += postings.size;
+            }
+            this.postingsCount = count;
+        }
+    }
+
+    // Growable sorted postings list
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private short[] weights = new short[4];
+        private int size;
+
+        private void append(int doc, short weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+        }
+    }
+}
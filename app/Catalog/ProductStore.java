@@ -0,0 +1,442 @@
+// ProductStore.java
+package com.lude.app.Catalog;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.lude.app.AdminDashboard;
+import com.lude.app.Pricing.Money;
+
+// Compact in-memory catalog: one primitive array per column instead of one object per
+// product.
+//
+//   ids, priceCents, stock          int[] / long[] / int[]
+//   versions                        long[], VersionedCatalog's per-product version stamps
+//   categoryCodes                   index into a small table of interned category names
+//   nameRefs, descriptionRefs       index into a string pool kept as one UTF-8 byte blob
+//
+// Strings are stored once however many products share them and cost their UTF-8 bytes plus
+// one offset, not a String and a byte[] each; they are decoded only when asked for.
+// Lookups by id go through an open-addressing int index.
+//
+// Slots are dense (0..size-1) and keep insertion order; removing shifts later products
+// down, one O(size) pass per removeAll() call however many ids it is given.
+// Not thread-safe: fill it on one thread, then use it from the FX thread.
+public final class ProductStore {
+
+    public static final int NO_STRING = -1;
+
+    private int size;
+    private int[] ids;
+    private long[] priceCents;
+    private int[] stock;
+    private int[] categoryCodes;
+    private int[] nameRefs;
+    private int[] descriptionRefs;
+    private long[] versions;
+    // Last change sequence reflected here (see VersionedCatalog)
+    private long sequence;
+
+    private final List<String> categories = new ArrayList<>();
+    private final Map<String, Integer> categoryIndex = new HashMap<>();
+
+    // String pool: string i is blob[stringOffsets[i] .. stringOffsets[i + 1])
+    private byte[] blob;
+    private int blobBytes;
+    private int[] stringOffsets;
+    private int stringCount;
+    // Deduplicates while filling from Product objects; dropped by trimToSize()
+    private Map<String, Integer> stringIndex = new HashMap<>();
+
+    // Open-addressing id -> slot + 1 (0 = empty)
+    private int[] indexKeys;
+    private int[] indexSlots;
+
+    public ProductStore(int expectedProducts) {
+        int capacity = Math.max(16, expectedProducts);
+        ids = new int[capacity];
+        priceCents = new long[capacity];
+        stock = new int[capacity];
+        categoryCodes = new int[capacity];
+        nameRefs = new int[capacity];
+        descriptionRefs = new int[capacity];
+        versions = new long[capacity];
+        blob = new byte[capacity * 32];
+        stringOffsets = new int[capacity + 1];
+        resizeIndex(capacity);
+    }
+
+    public static ProductStore of(List<AdminDashboard.Product> products) {
+        ProductStore store = new ProductStore(products.size());
+        for (AdminDashboard.Product product : products) {
+            store.add(product);
+        }
+        store.trimToSize();
+        return store;
+    }
+
+    // Built by CatalogFile from its own columns and string table, without per-product objects
+    static ProductStore fromColumns(int count, int[] ids, long[] priceCents, int[] stock,
+                                    int[] nameRefs, int[] descriptionRefs, int[] categoryRefs,
+                                    byte[] blob, int[] stringOffsets, long[] versions, long sequence) {
+        ProductStore store = new ProductStore(0);
+        store.size = count;
+        store.ids = ids;
+        store.priceCents = priceCents;
+        store.stock = stock;
+        store.nameRefs = nameRefs;
+        store.descriptionRefs = descriptionRefs;
+        store.versions = versions;
+        store.sequence = sequence;
+        store.blob = blob;
+        store.blobBytes = stringOffsets[stringOffsets.length - 1];
+        store.stringOffsets = stringOffsets;
+        store.stringCount = stringOffsets.length - 1;
+        store.stringIndex = null;
+
+        // Categories come in as string refs; turn each distinct one into a code once
+        int[] codeForRef = new int[store.stringCount];
+        Arrays.fill(codeForRef, -1);
+        int[] categoryCodes = new int[count];
+        for (int i = 0; i < count; i++) {
+            int ref = categoryRefs[i];
+            if (ref == NO_STRING) {
+                categoryCodes[i] = store.categoryCode(null);
+            } else {
+                if (codeForRef[ref] < 0) {
+                    codeForRef[ref] = store.categoryCode(store.string(ref));
+                }
+                categoryCodes[i] = codeForRef[ref];
+            }
+        }
+        store.categoryCodes = categoryCodes;
+
+        store.resizeIndex(count);
+        return store;
+    }
+
+    // Appends the product, or overwrites the one with the same id; returns its slot
+    public int add(AdminDashboard.Product product) {
+        int slot = add(product.getId(), product.getName(), product.getCategory(),
+                Money.toMinor(product.getPrice()), product.getStock(), product.getDescription());
+        versions[slot] = product.getVersion();
+        return slot;
+    }
+
+    public int add(int id, String name, String category, long cents, int stockLevel, String description) {
+        int slot = indexOf(id);
+        if (slot < 0) {
+            ensureCapacity(size + 1);
+            slot = size++;
+            ids[slot] = id;
+            versions[slot] = 0;
+            indexPut(id, slot);
+        }
+        priceCents[slot] = cents;
+        stock[slot] = stockLevel;
+        categoryCodes[slot] = categoryCode(category);
+        nameRefs[slot] = intern(name);
+        descriptionRefs[slot] = intern(description);
+        return slot;
+    }
+
+    // Removes the product with this id; false if there was none
+    public boolean remove(int id) {
+        return removeAll(List.of(id)) > 0;
+    }
+
+    // Removes every product with one of these ids in a single pass over the columns, keeping
+    // the order of the rest; returns how many were removed. Each call costs O(size), so batch
+    // deletes through here rather than calling remove() per id.
+    public int removeAll(Collection<Integer> removeIds) {
+        if (removeIds.isEmpty()) {
+            return 0;
+        }
+        boolean[] removed = new boolean[size];
+        int count = 0;
+        for (int id : removeIds) {
+            int slot = indexOf(id);
+            if (slot >= 0 && !removed[slot]) {
+                removed[slot] = true;
+                count++;
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        int first = 0;
+        while (!removed[first]) {
+            first++;
+        }
+        int kept = first;
+        for (int i = first; i < size; i++) {
+            if (removed[i]) {
+                indexRemove(ids[i]);
+                continue;
+            }
+            if (kept != i) {
+                ids[kept] = ids[i];
+                priceCents[kept] = priceCents[i];
+                stock[kept] = stock[i];
+                categoryCodes[kept] = categoryCodes[i];
+                nameRefs[kept] = nameRefs[i];
+                descriptionRefs[kept] = descriptionRefs[i];
+                versions[kept] = versions[i];
+            }
+            kept++;
+        }
+        size = kept;
+        // Slots before the first removed one did not move
+        for (int i = first; i < size; i++) {
+            indexPut(ids[i], i);
+        }
+        return count;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Slot of the product with this id, or -1
+    public int indexOf(int id) {
+        int mask = indexKeys.length - 1;
+        for (int i = mix(id) & mask; indexSlots[i] != 0; i = (i + 1) & mask) {
+            if (indexKeys[i] == id) {
+                return indexSlots[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    public int getId(int slot) { return ids[check(slot)]; }
+    public long getPriceCents(int slot) { return priceCents[check(slot)]; }
+    public double getPrice(int slot) { return Money.toMajor(getPriceCents(slot)); }
+    public int getStock(int slot) { return stock[check(slot)]; }
+    public String getName(int slot) { return string(nameRefs[check(slot)]); }
+    public String getDescription(int slot) { return string(descriptionRefs[check(slot)]); }
+
+    // "" for a product without a category, like Product.getCategory()
+    public String getCategory(int slot) {
+        String category = categories.get(categoryCodes[check(slot)]);
+        return category != null ? category : "";
+    }
+
+    public long getVersion(int slot) { return versions[check(slot)]; }
+
+    public void setVersion(int slot, long version) {
+        versions[check(slot)] = version;
+    }
+
+    // In-place edits of one product (the id stays; add() upserts by id)
+    public void setName(int slot, String name) { nameRefs[check(slot)] = intern(name); }
+    public void setDescription(int slot, String description) { descriptionRefs[check(slot)] = intern(description); }
+    public void setCategory(int slot, String category) { categoryCodes[check(slot)] = categoryCode(category); }
+    public void setPriceCents(int slot, long cents) { priceCents[check(slot)] = cents; }
+    public void setStock(int slot, int stockLevel) { stock[check(slot)] = stockLevel; }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    // A standalone copy, for code that still works with Product objects
+    public AdminDashboard.Product toProduct(int slot) {
+        AdminDashboard.Product product = new AdminDashboard.Product(
+                getId(slot), getName(slot), getDescription(slot), getPrice(slot), getStock(slot));
+        product.setCategory(categories.get(categoryCodes[slot]));
+        product.setVersion(versions[slot]);
+        return product;
+    }
+
+    public List<AdminDashboard.Product> toProducts() {
+        List<AdminDashboard.Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(toProduct(i));
+        }
+        return products;
+    }
+
+    // Same id, stock, price, name, description and category (the comparison CatalogDiff uses),
+    // without decoding strings the primitive columns already tell apart
+    public boolean sameContent(int slot, ProductStore other, int otherSlot) {
+        return ids[slot] == other.ids[otherSlot]
+                && stock[slot] == other.stock[otherSlot]
+                && priceCents[slot] == other.priceCents[otherSlot]
+                && sameString(nameRefs[slot], other, other.nameRefs[otherSlot])
+                && sameString(descriptionRefs[slot], other, other.descriptionRefs[otherSlot])
+                && getCategory(slot).equals(other.getCategory(otherSlot));
+    }
+
+    // An independent copy at its current size, e.g. for a list that edits it while the
+    // original keeps following the catalog
+    public ProductStore copy() {
+        ProductStore copy = new ProductStore(0);
+        int capacity = Math.max(size, 1);
+        copy.size = size;
+        copy.ids = Arrays.copyOf(ids, capacity);
+        copy.priceCents = Arrays.copyOf(priceCents, capacity);
+        copy.stock = Arrays.copyOf(stock, capacity);
+        copy.categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+        copy.nameRefs = Arrays.copyOf(nameRefs, capacity);
+        copy.descriptionRefs = Arrays.copyOf(descriptionRefs, capacity);
+        copy.versions = Arrays.copyOf(versions, capacity);
+        copy.sequence = sequence;
+        copy.categories.addAll(categories);
+        copy.categoryIndex.putAll(categoryIndex);
+        copy.blob = Arrays.copyOf(blob, blobBytes);
+        copy.blobBytes = blobBytes;
+        copy.stringOffsets = Arrays.copyOf(stringOffsets, stringCount + 1);
+        copy.stringCount = stringCount;
+        copy.stringIndex = null;
+        copy.indexKeys = indexKeys.clone();
+        copy.indexSlots = indexSlots.clone();
+        return copy;
+    }
+
+    // Drop spare capacity and the build-time string index once filling is done
+    public void trimToSize() {
+        int capacity = Math.max(size, 1);
+        ids = Arrays.copyOf(ids, capacity);
+        priceCents = Arrays.copyOf(priceCents, capacity);
+        stock = Arrays.copyOf(stock, capacity);
+        categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+        nameRefs = Arrays.copyOf(nameRefs, capacity);
+        descriptionRefs = Arrays.copyOf(descriptionRefs, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        blob = Arrays.copyOf(blob, blobBytes);
+        stringOffsets = Arrays.copyOf(stringOffsets, stringCount + 1);
+        stringIndex = null;
+    }
+
+    private int check(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " of " + size);
+        }
+        return slot;
+    }
+
+    private int categoryCode(String category) {
+        Integer code = categoryIndex.get(category);
+        if (code == null) {
+            code = categories.size();
+            categories.add(category == null ? null : category.intern());
+            categoryIndex.put(category, code);
+        }
+        return code;
+    }
+
+    private int intern(String value) {
+        if (value == null) {
+            return NO_STRING;
+        }
+        // Once filled, edits just append: rebuilding the index would cost more than the
+        // occasional duplicate bytes
+        Integer ref = stringIndex != null ? stringIndex.get(value) : null;
+        if (ref != null) {
+            return ref;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (blobBytes + bytes.length > blob.length) {
+            blob = Arrays.copyOf(blob, Math.max(blobBytes + bytes.length, blob.length * 2));
+        }
+        if (stringCount + 2 > stringOffsets.length) {
+            stringOffsets = Arrays.copyOf(stringOffsets, stringOffsets.length * 2);
+        }
+        System.arraycopy(bytes, 0, blob, blobBytes, bytes.length);
+        blobBytes += bytes.length;
+        stringOffsets[stringCount + 1] = blobBytes;
+        if (stringIndex != null) {
+            stringIndex.put(value, stringCount);
+        }
+        return stringCount++;
+    }
+
+    String string(int ref) {
+        if (ref == NO_STRING) {
+            return null;
+        }
+        int start = stringOffsets[ref];
+        return new String(blob, start, stringOffsets[ref + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    private boolean sameString(int ref, ProductStore other, int otherRef) {
+        if (ref == NO_STRING || otherRef == NO_STRING) {
+            return ref == otherRef;
+        }
+        return Arrays.equals(blob, stringOffsets[ref], stringOffsets[ref + 1],
+                other.blob, other.stringOffsets[otherRef], other.stringOffsets[otherRef + 1]);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(needed, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, capacity);
+        priceCents = Arrays.copyOf(priceCents, capacity);
+        stock = Arrays.copyOf(stock, capacity);
+        categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+        nameRefs = Arrays.copyOf(nameRefs, capacity);
+        descriptionRefs = Arrays.copyOf(descriptionRefs, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        if (capacity * 2 > indexKeys.length) {
+            resizeIndex(capacity);
+        }
+    }
+
+    // Rebuild the id index with room for this many products at load factor <= 0.5
+    private void resizeIndex(int products) {
+        int tableSize = Integer.highestOneBit(Math.max(products, 8) * 2 - 1) << 1;
+        indexKeys = new int[tableSize];
+        indexSlots = new int[tableSize];
+        for (int i = 0; i < size; i++) {
+            indexPut(ids[i], i);
+        }
+    }
+
+    private void indexPut(int id, int slot) {
+        int mask = indexKeys.length - 1;
+        int i = mix(id) & mask;
+        while (indexSlots[i] != 0 && indexKeys[i] != id) {
+            i = (i + 1) & mask;
+        }
+        indexKeys[i] = id;
+        indexSlots[i] = slot + 1;
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones
+    private void indexRemove(int id) {
+        int mask = indexKeys.length - 1;
+        int i = mix(id) & mask;
+        while (indexSlots[i] != 0 && indexKeys[i] != id) {
+            i = (i + 1) & mask;
+        }
+        if (indexSlots[i] == 0) {
+            return;
+        }
+        int hole = i;
+        for (int j = (hole + 1) & mask; indexSlots[j] != 0; j = (j + 1) & mask) {
+            int home = mix(indexKeys[j]) & mask;
+            // Move j back if its home position is not in (hole, j]
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                indexKeys[hole] = indexKeys[j];
+                indexSlots[hole] = indexSlots[j];
+                hole = j;
+            }
+        }
+        indexSlots[hole] = 0;
+    }
+
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
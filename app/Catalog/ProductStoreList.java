@@ -0,0 +1,389 @@
+// ProductStoreList.java
+package com.lude.app.Catalog;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import com.lude.app.AdminDashboard;
+import com.lude.app.Pricing.Money;
+import javafx.collections.ModifiableObservableListBase;
+
+// ObservableList of products kept in a ProductStore instead of one Product object each.
+//
+// get(i) hands out a view: a Product whose getters and setters go to the store's columns.
+// Views are cached weakly by id, so a product comes back as the same object while anyone
+// (a visible card, a search result) still holds it, and only those products have an object
+// at all; their *Property() objects are created the same way, on first use.
+//
+// Products are identified by id: indexOf/contains/remove(Object) match on getId(), an
+// id can be in the list only once, and set() must keep the id of the product it replaces.
+// add() only appends. A view that leaves the list (remove, setAll, clear, setStore) is
+// detached: it keeps the values it had and acts as a plain Product from then on.
+// Like ProductStore, not thread-safe: use it from the FX thread.
+public final class ProductStoreList extends ModifiableObservableListBase<AdminDashboard.Product> {
+
+    private ProductStore store;
+    private Map<Integer, ViewReference> views = new HashMap<>();
+    private final ReferenceQueue<StoreProduct> collected = new ReferenceQueue<>();
+    // Most views cached since the map was last replaced
+    private int peakViews;
+
+    public ProductStoreList() {
+        this(new ProductStore(0));
+    }
+
+    // The list takes the store over: change it through the list from now on
+    public ProductStoreList(ProductStore store) {
+        this.store = store;
+    }
+
+    // Show this store's products instead, as one change; no Product objects are built for them
+    public void setStore(ProductStore replacement) {
+        ProductStore previous = store;
+        detachAll();
+        store = replacement;
+        beginChange();
+        if (previous.size() > 0) {
+            nextRemove(0, new StoreSnapshot(previous));
+        }
+        if (replacement.size() > 0) {
+            nextAdd(0, replacement.size());
+        }
+        modCount++;
+        endChange();
+    }
+
+    @Override
+    public boolean setAll(Collection<? extends AdminDashboard.Product> products) {
+        setStore(ProductStore.of(new ArrayList<>(products)));
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        if (!isEmpty()) {
+            setStore(new ProductStore(0));
+        }
+    }
+
+    @Override
+    public AdminDashboard.Product get(int index) {
+        return view(store.getId(index));
+    }
+
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    // A copy of the products as they are now, without one object per product
+    public ProductStore snapshot() {
+        return store.copy();
+    }
+
+    // The product with this id, or null if it is not in the list
+    public AdminDashboard.Product getById(int id) {
+        return store.indexOf(id) >= 0 ? view(id) : null;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return o instanceof AdminDashboard.Product ? store.indexOf(((AdminDashboard.Product) o).getId()) : -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    // One pass over the store however many products match (see ProductStore.removeAll)
+    @Override
+    public boolean removeIf(Predicate<? super AdminDashboard.Product> filter) {
+        List<Integer> removedIds = new ArrayList<>();
+        beginChange();
+        try {
+            for (int i = 0; i < store.size(); i++) {
+                StoreProduct product = view(store.getId(i));
+                if (filter.test(product)) {
+                    nextRemove(i - removedIds.size(), product.detach());
+                    removedIds.add(product.getId());
+                }
+            }
+            if (!removedIds.isEmpty()) {
+                store.removeAll(removedIds);
+                modCount++;
+            }
+        } finally {
+            endChange();
+        }
+        return !removedIds.isEmpty();
+    }
+
+    @Override
+    protected void doAdd(int index, AdminDashboard.Product product) {
+        if (index != store.size()) {
+            throw new UnsupportedOperationException("Products can only be appended");
+        }
+        if (store.indexOf(product.getId()) >= 0) {
+            throw new IllegalArgumentException("Product #" + product.getId() + " is already in the list");
+        }
+        store.add(product);
+    }
+
+    @Override
+    protected AdminDashboard.Product doSet(int index, AdminDashboard.Product product) {
+        int id = store.getId(index);
+        if (product.getId() != id) {
+            throw new IllegalArgumentException("Product #" + product.getId() + " cannot replace product #" + id);
+        }
+        AdminDashboard.Product previous = store.toProduct(index);
+        StoreProduct view = cached(id);
+        if (product != view) {
+            store.add(product);
+            if (view != null) {
+                // Same object as before, new values; bound properties follow
+                view.pull();
+            }
+        }
+        return previous;
+    }
+
+    @Override
+    protected AdminDashboard.Product doRemove(int index) {
+        int id = store.getId(index);
+        StoreProduct view = cached(id);
+        AdminDashboard.Product removed = view != null ? view.detach() : store.toProduct(index);
+        store.remove(id);
+        return removed;
+    }
+
+    private StoreProduct view(int id) {
+        expungeCollected();
+        StoreProduct view = cached(id);
+        if (view == null) {
+            view = new StoreProduct(id);
+            views.put(id, new ViewReference(view, collected));
+            peakViews = Math.max(peakViews, views.size());
+        }
+        return view;
+    }
+
+    private StoreProduct cached(int id) {
+        ViewReference reference = views.get(id);
+        return reference != null ? reference.get() : null;
+    }
+
+    private void expungeCollected() {
+        boolean expunged = false;
+        for (Reference<? extends StoreProduct> r; (r = collected.poll()) != null; ) {
+            ViewReference reference = (ViewReference) r;
+            if (views.get(reference.id) == reference) {
+                views.remove(reference.id);
+                expunged = true;
+            }
+        }
+        // A HashMap never shrinks; once the views of a full scan are gone, start a small one
+        if (expunged && peakViews > 1024 && views.size() * 8 < peakViews) {
+            views = new HashMap<>(views);
+            peakViews = views.size();
+        }
+    }
+
+    private void detachAll() {
+        for (ViewReference reference : new ArrayList<>(views.values())) {
+            StoreProduct view = reference.get();
+            if (view != null) {
+                view.detach();
+            }
+        }
+        views = new HashMap<>();
+        peakViews = 0;
+    }
+
+    private static final class ViewReference extends WeakReference<StoreProduct> {
+        private final int id;
+
+        private ViewReference(StoreProduct view, ReferenceQueue<StoreProduct> queue) {
+            super(view, queue);
+            this.id = view.getId();
+        }
+    }
+
+    // Products of a store the list no longer shows, copied out only if a listener asks
+    private static final class StoreSnapshot extends AbstractList<AdminDashboard.Product> {
+        private final ProductStore store;
+
+        private StoreSnapshot(ProductStore store) {
+            this.store = store;
+        }
+
+        @Override
+        public AdminDashboard.Product get(int index) {
+            return store.toProduct(index);
+        }
+
+        @Override
+        public int size() {
+            return store.size();
+        }
+    }
+
+    // Reads and writes the store by id while in the list; the inherited fields only hold
+    // values once it has been detached (or pulled, for its properties)
+    private final class StoreProduct extends AdminDashboard.Product {
+        private boolean attached = true;
+
+        private StoreProduct(int id) {
+            super(id, null, null, 0, 0);
+        }
+
+        private int slot() {
+            return attached ? store.indexOf(getId()) : -1;
+        }
+
+        // Copy the store's values into the fields (and any properties already created)
+        private void pull() {
+            int slot = slot();
+            if (slot < 0) {
+                return;
+            }
+            super.setName(store.getName(slot));
+            super.setDescription(store.getDescription(slot));
+            super.setPrice(store.getPrice(slot));
+            super.setStock(store.getStock(slot));
+            super.setCategory(store.getCategory(slot));
+            super.setVersion(store.getVersion(slot));
+        }
+
+        private StoreProduct detach() {
+            pull();
+            attached = false;
+            ViewReference reference = views.get(getId());
+            if (reference != null && reference.get() == this) {
+                views.remove(getId());
+            }
+            return this;
+        }
+
+        @Override
+        public String getName() {
+            int slot = slot();
+            return slot >= 0 ? store.getName(slot) : super.getName();
+        }
+
+        @Override
+        public String getDescription() {
+            int slot = slot();
+            return slot >= 0 ? store.getDescription(slot) : super.getDescription();
+        }
+
+        @Override
+        public double getPrice() {
+            int slot = slot();
+            return slot >= 0 ? store.getPrice(slot) : super.getPrice();
+        }
+
+        @Override
+        public int getStock() {
+            int slot = slot();
+            return slot >= 0 ? store.getStock(slot) : super.getStock();
+        }
+
+        @Override
+        public String getCategory() {
+            int slot = slot();
+            return slot >= 0 ? store.getCategory(slot) : super.getCategory();
+        }
+
+        @Override
+        public long getVersion() {
+            int slot = slot();
+            return slot >= 0 ? store.getVersion(slot) : super.getVersion();
+        }
+
+        @Override
+        public void setId(int id) {
+            if (attached) {
+                throw new IllegalStateException("Product #" + getId() + " is in a list; remove it before changing its id");
+            }
+            super.setId(id);
+        }
+
+        @Override
+        public void setName(String name) {
+            int slot = slot();
+            if (slot >= 0) {
+                store.setName(slot, name);
+            }
+            super.setName(name);
+        }
+
+        @Override
+        public void setDescription(String description) {
+            int slot = slot();
+            if (slot >= 0) {
+                store.setDescription(slot, description);
+            }
+            super.setDescription(description);
+        }
+
+        @Override
+        public void setPrice(double price) {
+            int slot = slot();
+            if (slot >= 0) {
+                store.setPriceCents(slot, Money.toMinor(price));
+            }
+            super.setPrice(price);
+        }
+
+        @Override
+        public void setStock(int stock) {
+            int slot = slot();
+            if (slot >= 0) {
+                store.setStock(slot, stock);
+            }
+            super.setStock(stock);
+        }
+
+        @Override
+        public void setCategory(String category) {
+            int slot = slot();
+            if (slot >= 0) {
+                store.setCategory(slot, category);
+            }
+            super.setCategory(category);
+        }
+
+        @Override
+        public void setVersion(long version) {
+            int slot = slot();
+            if (slot >= 0) {
+                store.setVersion(slot, version);
+            }
+            super.setVersion(version);
+        }
+    }
+}
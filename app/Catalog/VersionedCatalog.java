@@ -0,0 +1,327 @@
+// VersionedCatalog.java
+package com.lude.app.Catalog;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.lude.app.AdminDashboard;
+import com.lude.app.Logging.Log;
+import com.lude.app.Logging.Logger;
+import com.lude.app.Metrics.MetricsRegistry;
+
+// The product catalog as a catalog file plus an append-only change log, with optimistic
+// concurrency per product.
+//
+//   products.dat       CatalogFile with sequence + per-product versions
+//   products.dat.log   ProductChangeLog of every change since that file was written
+//   products.dat.lock  held (FileLock) while a change is being committed
+//
+// Every change gets the next catalog sequence number, and the product's version becomes
+// that number. update() and delete() take the version the caller last saw and fail with
+// CONFLICT if the product has changed since (another admin, another window, an import),
+// so nobody silently overwrites a change they never saw. A commit takes the lock, first
+// reads whatever other processes appended, checks versions, appends one small record
+// and forces it to disk; the catalog file itself is only rewritten by compaction, once
+// the log has grown past a threshold.
+public class VersionedCatalog {
+
+    private static final Logger LOG = Log.get(VersionedCatalog.class);
+
+    public enum Status { APPLIED, CONFLICT, NOT_FOUND }
+
+    // Version to pass to insert-style checks: the product must not exist yet
+    public static final long ABSENT = -1;
+
+    // Override with -Dnepshop.catalog.<name>=<value>
+    private static final int COMPACT_AFTER_RECORDS = Integer.getInteger("nepshop.catalog.compactAfterRecords", 1000);
+    private static final long COMPACT_AFTER_BYTES = Long.getLong("nepshop.catalog.compactAfterBytes", 4L * 1024 * 1024);
+
+    // FileLock is held per process, so catalogs in the same JVM also queue on this
+    private static final Object PROCESS_LOCK = new Object();
+    private static final long NO_LOG = Long.MIN_VALUE;
+
+    private static final LongAdder COMMITS = MetricsRegistry.counter("catalog.commits");
+    private static final LongAdder CONFLICTS = MetricsRegistry.counter("catalog.conflicts");
+    private static final LongAdder COMPACTIONS = MetricsRegistry.counter("catalog.compactions");
+
+    private final Path file;
+    private final Path logFile;
+    private final Path lockFile;
+
+    private ProductStore store = new ProductStore(0);
+    // Base sequence in the header of the log we have read, and how far we have read it
+    private long logBaseSequence = NO_LOG;
+    private long logOffset;
+    private int logRecords;
+
+    private VersionedCatalog(Path file) {
+        this.file = file.toAbsolutePath();
+        this.logFile = logFileFor(this.file);
+        this.lockFile = this.file.resolveSibling(this.file.getFileName() + ".lock");
+    }
+
+    public static VersionedCatalog open(Path file) throws IOException {
+        VersionedCatalog catalog = new VersionedCatalog(file);
+        synchronized (catalog) {
+            catalog.reload();
+        }
+        return catalog;
+    }
+
+    // Current contents (catalog file plus log) for read-only users such as CatalogWatcher
+    public static ProductStore readStore(Path file) throws IOException {
+        return open(file).store;
+    }
+
+    public static Path logFileFor(Path file) {
+        Path absolute = file.toAbsolutePath();
+        return absolute.resolveSibling(absolute.getFileName() + ".log");
+    }
+
+    // Copies, each carrying its version
+    public synchronized List<AdminDashboard.Product> getProducts() {
+        return store.toProducts();
+    }
+
+    // A copy of the whole catalog as a ProductStore, without one object per product
+    public synchronized ProductStore snapshot() {
+        return store.copy();
+    }
+
+    public synchronized long getSequence() {
+        return store.getSequence();
+    }
+
+    // Current version of a product, or ABSENT
+    public synchronized long getVersion(int productId) {
+        int slot = store.indexOf(productId);
+        return slot < 0 ? ABSENT : store.getVersion(slot);
+    }
+
+    // Pick up changes committed by other processes; true if there were any
+    public synchronized boolean refresh() throws IOException {
+        long before = store.getSequence();
+        catchUp();
+        return store.getSequence() != before;
+    }
+
+    // Add a product whose id is not in the catalog yet
+    public synchronized Result insert(AdminDashboard.Product product) throws IOException {
+        return commit(product.getId(), ABSENT, product);
+    }
+
+    // Replace a product, if it is still at the version the caller read (product.getVersion())
+    public synchronized Result update(AdminDashboard.Product product) throws IOException {
+        return commit(product.getId(), product.getVersion(), product);
+    }
+
+    public synchronized Result delete(int productId, long expectedVersion) throws IOException {
+        return commit(productId, expectedVersion, null);
+    }
+
+    // Unconditional upsert of many products (bulk import); the versions they come back with
+    // are set on the products. Large batches go straight into the catalog file.
+    public synchronized void putAll(List<AdminDashboard.Product> products) throws IOException {
+        if (products.isEmpty()) {
+            return;
+        }
+        withLock(() -> {
+            long sequence = store.getSequence();
+            List<ProductChangeLog.Change> changes = new ArrayList<>(products.size());
+            for (AdminDashboard.Product product : products) {
+                changes.add(ProductChangeLog.Change.put(++sequence, product));
+            }
+            if (changes.size() >= COMPACT_AFTER_RECORDS) {
+                apply(changes);
+                compactLocked();
+            } else {
+                appendLocked(changes);
+            }
+            for (int i = 0; i < products.size(); i++) {
+                products.get(i).setVersion(changes.get(i).version);
+            }
+            COMMITS.add(changes.size());
+            return null;
+        });
+    }
+
+    // Fold the log into the catalog file now; nothing to do if the log is empty
+    public synchronized void compact() throws IOException {
+        withLock(() -> {
+            if (logRecords > 0) {
+                compactLocked();
+            }
+            return null;
+        });
+    }
+
+    private Result commit(int productId, long expectedVersion, AdminDashboard.Product replacement) throws IOException {
+        return withLock(() -> {
+            int slot = store.indexOf(productId);
+            long current = slot < 0 ? ABSENT : store.getVersion(slot);
+            if (current != expectedVersion) {
+                CONFLICTS.increment();
+                Status status = slot < 0 ? Status.NOT_FOUND : Status.CONFLICT;
+                LOG.info("Product change rejected", "productId", productId, "status", status,
+                        "expectedVersion", expectedVersion, "currentVersion", current);
+                return new Result(status, current, slot < 0 ? null : store.toProduct(slot));
+            }
+            long sequence = store.getSequence() + 1;
+            ProductChangeLog.Change change = replacement == null
+                    ? ProductChangeLog.Change.delete(sequence, productId)
+                    : ProductChangeLog.Change.put(sequence, replacement);
+            appendLocked(List.of(change));
+            COMMITS.increment();
+            if (replacement != null) {
+                replacement.setVersion(sequence);
+            }
+            return new Result(Status.APPLIED, sequence, replacement);
+        });
+    }
+
+    private interface LockedAction<T> {
+        T run() throws IOException;
+    }
+
+    // Cross-process lock, then catch up with the log so checks see every committed change
+    private <T> T withLock(LockedAction<T> action) throws IOException {
+        synchronized (PROCESS_LOCK) {
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Held until the channel closes
+                channel.lock();
+                catchUp();
+                return action.run();
+            }
+        }
+    }
+
+    private void appendLocked(List<ProductChangeLog.Change> changes) throws IOException {
+        if (logBaseSequence == NO_LOG) {
+            if (!Files.exists(file)) {
+                // The log is only ever read on top of a catalog file (CustomerDashboard, CatalogWatcher)
+                CatalogFile.write(file, store.toProducts(), store.getSequence());
+            }
+            ProductChangeLog.reset(logFile, store.getSequence());
+            logBaseSequence = store.getSequence();
+            logOffset = ProductChangeLog.HEADER_BYTES;
+            logRecords = 0;
+        }
+        logOffset = ProductChangeLog.append(logFile, logOffset, changes);
+        apply(changes);
+        logRecords += changes.size();
+        if (logRecords >= COMPACT_AFTER_RECORDS || logOffset >= COMPACT_AFTER_BYTES) {
+            compactLocked();
+        }
+    }
+
+    // New catalog file first, then an empty log based on it. A crash in between leaves the
+    // old log, whose records are all at or below the new file's sequence and are skipped.
+    private void compactLocked() throws IOException {
+        long start = System.nanoTime();
+        long sequence = store.getSequence();
+        CatalogFile.write(file, store.toProducts(), sequence);
+        ProductChangeLog.reset(logFile, sequence);
+        int folded = logRecords;
+        logBaseSequence = sequence;
+        logOffset = ProductChangeLog.HEADER_BYTES;
+        logRecords = 0;
+        COMPACTIONS.increment();
+        LOG.info("Catalog compacted", "products", store.size(), "sequence", sequence,
+                "foldedRecords", folded, "elapsedMs", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Read records appended since last time; start over if the log was replaced
+    private void catchUp() throws IOException {
+        if (logBaseSequence == NO_LOG) {
+            // Another process may have committed the first change since we looked
+            if (Files.exists(logFile)) {
+                reload();
+            }
+            return;
+        }
+        ProductChangeLog.Tail tail = ProductChangeLog.read(logFile, logOffset);
+        if (tail == null || tail.baseSequence != logBaseSequence) {
+            reload();
+            return;
+        }
+        apply(tail.changes);
+        logRecords += tail.changes.size();
+        logOffset = tail.validBytes;
+    }
+
+    private void reload() throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            ProductStore base = Files.exists(file) ? CatalogFile.readStore(file) : new ProductStore(0);
+            ProductChangeLog.Tail tail = ProductChangeLog.read(logFile, 0);
+            // A log newer than the file means a compaction finished between the two reads
+            if (tail != null && tail.baseSequence > base.getSequence() && attempt < 3) {
+                continue;
+            }
+            store = base;
+            logRecords = 0;
+            if (tail == null) {
+                logBaseSequence = NO_LOG;
+                logOffset = 0;
+            } else {
+                logBaseSequence = tail.baseSequence;
+                logOffset = tail.validBytes;
+                apply(tail.changes);
+                logRecords = tail.changes.size();
+            }
+            return;
+        }
+    }
+
+    // Skips records already in the store, e.g. ones folded into the file by a compaction.
+    // Deletes are collected and removed in one pass (see ProductStore.removeAll); a put for an
+    // id that is waiting to be deleted flushes them first, so it is re-added at the end.
+    private void apply(List<ProductChangeLog.Change> changes) {
+        Set<Integer> deleted = new HashSet<>();
+        for (ProductChangeLog.Change change : changes) {
+            if (change.sequence <= store.getSequence()) {
+                continue;
+            }
+            if (change.op == ProductChangeLog.OP_DELETE) {
+                deleted.add(change.productId);
+            } else {
+                if (deleted.contains(change.productId)) {
+                    store.removeAll(deleted);
+                    deleted.clear();
+                }
+                int slot = store.add(change.productId, change.name, change.category,
+                        change.priceCents, change.stock, change.description);
+                store.setVersion(slot, change.version);
+            }
+            store.setSequence(change.sequence);
+        }
+        store.removeAll(deleted);
+    }
+
+    // Outcome of a compare-and-set change
+    public static final class Result {
+        private final Status status;
+        private final long version;
+        private final AdminDashboard.Product product;
+
+        private Result(Status status, long version, AdminDashboard.Product product) {
+            this.status = status;
+            this.version = version;
+            this.product = product;
+        }
+
+        public Status getStatus() { return status; }
+        public boolean isApplied() { return status == Status.APPLIED; }
+        // The new version when applied, otherwise the product's current one (ABSENT if gone)
+        public long getVersion() { return version; }
+        // The product as written, or on CONFLICT the catalog's current copy
+        public AdminDashboard.Product getProduct() { return product; }
+    }
+}
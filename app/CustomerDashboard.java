@@ -1,12 +1,31 @@
 package com.lude.app;
 
+import com.lude.app.Catalog.CatalogDiff;
+import com.lude.app.Catalog.CategoryFacetIndex;
+import com.lude.app.Catalog.CatalogMigrator;
+import com.lude.app.Catalog.CatalogWatcher;
+import com.lude.app.Catalog.ProductSearchIndex;
+import com.lude.app.Catalog.ProductStoreList;
+import com.lude.app.Catalog.VersionedCatalog;
+import com.lude.app.Logging.Log;
+import com.lude.app.Logging.Logger;
+import com.lude.app.Metrics.LatencyHistogram;
+import com.lude.app.Metrics.MetricsRegistry;
+import com.lude.app.Metrics.MetricsReporter;
+import com.lude.app.Middleware.CartStore;
 import com.lude.app.Middleware.Middleware;
+import com.lude.app.Middleware.MiddlewareAsync;
+import com.lude.app.Middleware.ProductCache;
+import com.lude.app.Middleware.ProductPager;
+import com.lude.app.Middleware.ProductRepository;
+import com.lude.app.Middleware.SessionRegistry;
+import com.lude.app.Pricing.Money;
+import com.lude.app.Pricing.MoneyFormat;
 import javafx.animation.FadeTransition;
 import javafx.animation.ScaleTransition;
 import javafx.animation.TranslateTransition;
 import javafx.application.Application;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.event.ActionEvent;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
@@ -23,31 +42,57 @@ import javafx.stage.Stage;
 import javafx.util.Duration;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionException;
 
 public class CustomerDashboard extends Application {
 
-    // Product list
-    private final ObservableList<AdminDashboard.Product> products = FXCollections.observableArrayList();
+    private static final Logger LOG = Log.get(CustomerDashboard.class);
+
+    // Product list, kept in a ProductStore; only products on screen get objects
+    private final ProductStoreList products = new ProductStoreList();
+    // Kept in sync with products through a list listener
+    private final ProductSearchIndex searchIndex = ProductSearchIndex.bindTo(products);
+    private final CategoryFacetIndex categoryIndex = CategoryFacetIndex.bindTo(products);
+    private final Set<String> selectedCategories = new TreeSet<>();
     private static final String PRODUCT_FILE = "products.dat";
-    private ScheduledExecutorService scheduler;
+    private static final LatencyHistogram REFRESH_LATENCY = MetricsRegistry.histogram("ui.refresh.customer");
+    private static final long SEARCH_DEBOUNCE_MS = 150;
+    // -Dnepshop.catalog.source=database pages the product listings from MySQL as you scroll
+    private static final boolean PAGE_FROM_DATABASE =
+            "database".equalsIgnoreCase(System.getProperty("nepshop.catalog.source", "file"));
+    private static final int TAX_BASIS_POINTS = Money.DEFAULT_TAX_BASIS_POINTS; // 10%
+    private CatalogWatcher catalogWatcher;
+    private SearchExecutor searchExecutor;
+    private CartStore cartStore;
+    private ProductPager productPager;
 
     // UI Components
-    private FlowPane productContainer;
+    private VirtualProductGrid productContainer;
+    private VBox categoryButtons;
     private Stage primaryStage;
     private Label cartCountLabel;
     private ShoppingCart cart;
     private BorderPane mainRoot;
-    private ScrollPane scrollPane;
 
     @Override
     public void start(Stage primaryStage) {
         this.primaryStage = primaryStage;
         primaryStage.setTitle("Lude Shop - Customer Experience");
+        MetricsReporter.start();
 
         // Initialize the shopping cart
         cart = new ShoppingCart();
@@ -55,9 +100,19 @@ public class CustomerDashboard extends Application {
         // Load products from file
         loadProducts();
 
-        // Set up file watcher to refresh products periodically
-        scheduler = Executors.newSingleThreadScheduledExecutor();
-        scheduler.scheduleAtFixedRate(this::loadProducts, 5, 5, TimeUnit.SECONDS);
+        // Restore the saved cart from the local journal; changes are written behind to the database
+        restoreCart();
+
+        // Watch the product file and apply only real changes
+        catalogWatcher = new CatalogWatcher(Paths.get(PRODUCT_FILE), this::applyCatalogDiff);
+        try {
+            catalogWatcher.start(products.snapshot());
+        } catch (IOException e) {
+            LOG.warn("Error starting catalog watcher", e);
+        }
+
+        // Search runs on a background thread, debounced per keystroke
+        searchExecutor = new SearchExecutor(searchIndex, SEARCH_DEBOUNCE_MS, results -> productContainer.setProducts(results));
 
         // Create main scene
         mainRoot = new BorderPane();
@@ -95,12 +150,27 @@ public class CustomerDashboard extends Application {
 
         // Clean up when closing
         primaryStage.setOnCloseRequest(e -> {
-            if (scheduler != null) {
-                scheduler.shutdown();
+            if (catalogWatcher != null) {
+                catalogWatcher.close();
+            }
+            if (searchExecutor != null) {
+                searchExecutor.close();
+            }
+            if (cartStore != null) {
+                cartStore.close();
             }
         });
     }
 
+    private void restoreCart() {
+        try {
+            cartStore = CartStore.open(getCurrentUserId());
+            cartStore.restoreInto(cart, products::getById);
+        } catch (IOException e) {
+            LOG.warn("Error opening saved cart", e, "userId", getCurrentUserId());
+        }
+    }
+
     private HBox createHeader() {
         HBox header = new HBox();
         header.setPadding(new Insets(15, 20, 15, 20));
@@ -188,7 +258,7 @@ public class CustomerDashboard extends Application {
         Button logoutButton = createIconButton("M17 7l-1.41 1.41L18.17 11H8v2h10.17l-2.58 2.58L17 17l5-5zM4 5h8V3H4c-1.1 0-2 .9-2 2v14c0 1.1.9 2 2 2h8v-2H4V5z", "Logout");
         logoutButton.setOnAction(e -> {
             if (showConfirmation("Logout", "Are you sure you want to logout?")) {
-                // Here you would implement the actual logout logic
+                Middleware.logout();
                 System.exit(0); // For demonstration purposes
             }
         });
@@ -294,7 +364,7 @@ public class CustomerDashboard extends Application {
         );
 
         // Counter badge
-        cartCountLabel = new Label("0");
+        cartCountLabel = new Label(String.valueOf(cart.getItemCount()));
         cartCountLabel.setStyle(
                 "-fx-background-color: #e74c3c;" +
                         "-fx-background-radius: 50%;" +
@@ -368,7 +438,14 @@ public class CustomerDashboard extends Application {
         sidebar.setPadding(new Insets(20, 0, 0, 0));
         sidebar.setSpacing(5);
 
+        // Categories section, with live product counts from the facet index
+        Label categoriesTitle = new Label("CATEGORIES");
+        categoriesTitle.setFont(Font.font("Arial", FontWeight.BOLD, 14));
+        categoriesTitle.setTextFill(Color.rgb(255, 255, 255, 0.8));
+        categoriesTitle.setPadding(new Insets(0, 0, 10, 20));
 
+        categoryButtons = new VBox(5);
+        refreshCategoryButtons();
 
         // Divider
         Region divider = new Region();
@@ -396,7 +473,8 @@ public class CustomerDashboard extends Application {
         });
 
         sidebar.getChildren().addAll(
-
+                categoriesTitle,
+                categoryButtons,
                 divider,
                 supportTitle,
                 contactBtn,
@@ -406,6 +484,54 @@ public class CustomerDashboard extends Application {
         return sidebar;
     }
 
+    // Rebuild the category buttons from the facet counts (a handful of buttons, not one per product).
+    // Click selects one category; Ctrl/Cmd-click adds or removes a category from the selection.
+    private void refreshCategoryButtons() {
+        Map<String, Integer> counts = categoryIndex.getCounts();
+        selectedCategories.retainAll(counts.keySet());
+
+        categoryButtons.getChildren().clear();
+        Button allButton = createSidebarButton("All Products (" + products.size() + ")", selectedCategories.isEmpty());
+        allButton.setOnAction(e -> {
+            selectedCategories.clear();
+            refreshCategoryButtons();
+            showSelectedCategories();
+        });
+        categoryButtons.getChildren().add(allButton);
+
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            String category = entry.getKey();
+            if (category.isEmpty()) {
+                continue;
+            }
+            Button button = createSidebarButton(category + " (" + entry.getValue() + ")",
+                    selectedCategories.contains(category));
+            button.setOnMouseClicked(e -> {
+                if (e.isShortcutDown()) {
+                    if (!selectedCategories.remove(category)) {
+                        selectedCategories.add(category);
+                    }
+                } else {
+                    selectedCategories.clear();
+                    selectedCategories.add(category);
+                }
+                refreshCategoryButtons();
+                showSelectedCategories();
+            });
+            categoryButtons.getChildren().add(button);
+        }
+    }
+
+    private void showSelectedCategories() {
+        if (selectedCategories.isEmpty()) {
+            displayProducts();
+        } else if (selectedCategories.size() == 1) {
+            filterProductsByCategory(selectedCategories.iterator().next());
+        } else {
+            productContainer.setProducts(categoryIndex.union(selectedCategories));
+        }
+    }
+
     private Button createSidebarButton(String text, boolean isActive) {
         Button button = new Button(text);
         button.getStyleClass().add("sidebar-button");
@@ -431,43 +557,50 @@ public class CustomerDashboard extends Application {
         activeButton.setStyle("-fx-background-color: rgba(255, 255, 255, 0.2); -fx-text-fill: white;");
     }
 
-    private ScrollPane createProductsView() {
+    private VBox createProductsView() {
         // Section title
         Label sectionTitle = new Label("Featured Products");
         sectionTitle.setFont(Font.font("Arial", FontWeight.BOLD, 22));
         sectionTitle.setPadding(new Insets(20, 0, 20, 0));
 
-        // Create a flow pane for products
-        productContainer = new FlowPane();
-        productContainer.setHgap(20);
-        productContainer.setVgap(20);
-        productContainer.setPadding(new Insets(0, 20, 20, 20));
+        // Virtualized grid: only the rows in view have live cards, and it scrolls itself
+        productContainer = new VirtualProductGrid(this::createProductCard, this::updateProductCard, 220, 20);
         productContainer.setPrefWidth(700);
+        VBox.setVgrow(productContainer, Priority.ALWAYS);
+        if (PAGE_FROM_DATABASE) {
+            productPager = new ProductPager(ProductRepository.Sort.NAME, ProductRepository.DEFAULT_PAGE_SIZE,
+                    productContainer::appendProducts);
+            productContainer.setOnNearEnd(productPager::loadMore);
+        }
 
         // Wrap in VBox with title
         VBox productsViewContent = new VBox();
         productsViewContent.setPadding(new Insets(0, 0, 0, 20));
+        productsViewContent.setStyle("-fx-background-color: white;");
         productsViewContent.getChildren().addAll(sectionTitle, productContainer);
 
         // Display products
         displayProducts();
 
-        // Wrap in ScrollPane for scrolling
-        scrollPane = new ScrollPane(productsViewContent);
-        scrollPane.setFitToWidth(true);
-        scrollPane.setStyle("-fx-background-color: white;");
-        return scrollPane;
+        return productsViewContent;
     }
     private void displayProducts() {
-        productContainer.getChildren().clear();
-        // Add each product to the container
-        for (AdminDashboard.Product product : products) {
-            VBox productCard = createProductCard(product);
-            productCard.setPrefWidth(220);
-            productCard.setPrefHeight(280);
-            productContainer.getChildren().add(productCard);
+        if (productPager != null) {
+            showPagedListing(null);
+            return;
         }
+        long start = System.nanoTime();
+        // Only the visible rows are (re)bound
+        productContainer.setProducts(products);
+        MetricsRegistry.recordSince(REFRESH_LATENCY, start);
+    }
+
+    // Clear the grid and stream the listing from the database, page by page
+    private void showPagedListing(String category) {
+        productContainer.setProducts(new ArrayList<>());
+        productPager.reset(category);
     }
+
     private VBox createProductCard(AdminDashboard.Product product) {
         VBox card = new VBox();
         card.getStyleClass().add("product-card");
@@ -499,13 +632,16 @@ public class CustomerDashboard extends Application {
         nameLabel.setFont(Font.font("Arial", FontWeight.BOLD, 14));
         nameLabel.setWrapText(true);
         nameLabel.setMaxWidth(180);
+        card.getProperties().put("nameLabel", nameLabel);
 
         Label categoryLabel = new Label(product.getCategory());
         categoryLabel.setStyle("-fx-text-fill: #7f8c8d;");
+        card.getProperties().put("categoryLabel", categoryLabel);
 
-        Label priceLabel = new Label("$" + String.format("%.2f", product.getPrice()));
+        Label priceLabel = new Label(MoneyFormat.formatMinor(Money.toMinor(product.getPrice())));
         priceLabel.setFont(Font.font("Arial", FontWeight.BOLD, 16));
         priceLabel.setStyle("-fx-text-fill: #2c3e50;");
+        card.getProperties().put("priceLabel", priceLabel);
 
         // Add to cart button
         Button addToCartBtn = new Button("Add to Cart");
@@ -541,11 +677,12 @@ public class CustomerDashboard extends Application {
                 )
         );
 
-        // Add to cart functionality
+        // Add to cart functionality (the card may have been updated with a newer product)
         addToCartBtn.setOnAction(e -> {
-            cart.addItem(product);
+            AdminDashboard.Product current = (AdminDashboard.Product) card.getUserData();
+            cart.addItem(current);
             updateCartCounter();
-            showNotification("Added to Cart", product.getName() + " has been added to your cart.");
+            showNotification("Added to Cart", current.getName() + " has been added to your cart.");
 
             // Animate button
             ScaleTransition scale = new ScaleTransition(Duration.millis(100), addToCartBtn);
@@ -560,13 +697,22 @@ public class CustomerDashboard extends Application {
         VBox.setVgrow(spacer, Priority.ALWAYS);
 
         card.getChildren().addAll(imagePlaceholder, nameLabel, categoryLabel, spacer, priceLabel, addToCartBtn);
+        card.setPrefWidth(220);
+        card.setPrefHeight(280);
 
         // Card click to show product details
-        card.setOnMouseClicked(e -> showProductDetails(product));
+        card.setOnMouseClicked(e -> openProductDetails((AdminDashboard.Product) card.getUserData()));
 
         return card;
     }
 
+    // Refresh the labels of a cached card after its product changed
+    private void updateProductCard(VBox card, AdminDashboard.Product product) {
+        ((Label) card.getProperties().get("nameLabel")).setText(product.getName());
+        ((Label) card.getProperties().get("categoryLabel")).setText(product.getCategory());
+        ((Label) card.getProperties().get("priceLabel")).setText(MoneyFormat.formatMinor(Money.toMinor(product.getPrice())));
+    }
+
     private void updateCartCounter() {
         cartCountLabel.setText(String.valueOf(cart.getItemCount()));
     }
@@ -613,44 +759,52 @@ public class CustomerDashboard extends Application {
     }
 
     private void filterProducts(String searchTerm) {
-        productContainer.getChildren().clear();
-
         if (searchTerm == null || searchTerm.isEmpty()) {
+            searchExecutor.cancel();
             displayProducts();
             return;
         }
 
-        searchTerm = searchTerm.toLowerCase();
-        for (AdminDashboard.Product product : products) {
-            if (product.getName().toLowerCase().contains(searchTerm) ||
-                    product.getCategory().toLowerCase().contains(searchTerm) ||
-                    product.getDescription().toLowerCase().contains(searchTerm)) {
-
-                VBox productCard = createProductCard(product);
-                productCard.setPrefWidth(220);
-                productCard.setPrefHeight(280);
-                productContainer.getChildren().add(productCard);
-            }
-        }
+        // Results are published back on the FX thread; stale queries are dropped
+        searchExecutor.submit(searchTerm);
     }
 
     private void filterProductsByCategory(String category) {
-        productContainer.getChildren().clear();
-
-        for (AdminDashboard.Product product : products) {
-            if (product.getCategory().equals(category)) {
-                VBox productCard = createProductCard(product);
-                productCard.setPrefWidth(220);
-                productCard.setPrefHeight(280);
-                productContainer.getChildren().add(productCard);
-            }
+        if (productPager != null) {
+            showPagedListing(category);
+            return;
         }
+        // One bitmap walk instead of a scan over every product
+        productContainer.setProducts(categoryIndex.filter(category));
     }
 
     private void refreshProductDisplay() {
         displayProducts();
     }
 
+    // Details of a database-backed product come from ProductCache (fresher stock than the card),
+    // loaded off the FX thread on a miss; the card's copy is shown if the load fails
+    private void openProductDetails(AdminDashboard.Product product) {
+        if (productPager == null) {
+            showProductDetails(product);
+            return;
+        }
+        int id = product.getId();
+        MiddlewareAsync.submit(() -> {
+            try {
+                return ProductCache.shared().get(id);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }).whenCompleteAsync((fresh, error) -> {
+            if (error == null && fresh == null) {
+                showNotification("Unavailable", product.getName() + " is no longer available.");
+            } else {
+                showProductDetails(error == null ? fresh : product);
+            }
+        }, MiddlewareAsync.FX_THREAD);
+    }
+
     private void showProductDetails(AdminDashboard.Product product) {
         // Create a dialog for product details
         Dialog<ButtonType> dialog = new Dialog<>();
@@ -685,7 +839,7 @@ public class CustomerDashboard extends Application {
         Label categoryLabel = new Label("Category: " + product.getCategory());
         categoryLabel.setStyle("-fx-text-fill: #7f8c8d; -fx-font-size: 14px;");
 
-        Label priceLabel = new Label("Price: $" + String.format("%.2f", product.getPrice()));
+        Label priceLabel = new Label("Price: " + MoneyFormat.formatMinor(Money.toMinor(product.getPrice())));
         priceLabel.setFont(Font.font("Arial", FontWeight.BOLD, 18));
 
         Label stockLabel = new Label("Stock: " + product.getStock() + " items");
@@ -725,9 +879,7 @@ public class CustomerDashboard extends Application {
         // Add to cart functionality
         addToCartBtn.setOnAction(e -> {
             int quantity = quantitySpinner.getValue();
-            for (int i = 0; i < quantity; i++) {
-                cart.addItem(product);
-            }
+            cart.addItem(product, quantity);
             updateCartCounter();
             showNotification("Added to Cart", quantity + " x " + product.getName() + " has been added to your cart.");
             dialog.close();
@@ -787,32 +939,6 @@ public class CustomerDashboard extends Application {
             emptyCart.getChildren().addAll(emptyLabel, continueShopping);
             content.setCenter(emptyCart);
 
-            checkoutButton.setOnAction(e -> {
-                int userId = getCurrentUserId(); // Ensure this returns the logged-in user's ID
-
-                boolean success = Middleware.placeOrder(userId, cart.getItems());
-
-                if (success) {
-                    Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                    alert.setTitle("Order Confirmation");
-                    alert.setHeaderText("Order Completed");
-                    alert.setContentText("Your order has been placed successfully and saved in the database.");
-                    alert.showAndWait(); // Show confirmation before closing
-
-                    cart.clearCart(); // Clear the cart after placing order
-                    updateCartCounter(); // Update the cart counter in UI
-                } else {
-                    Alert alert = new Alert(Alert.AlertType.ERROR);
-                    alert.setTitle("Order Failed");
-                    alert.setHeaderText("Error!");
-                    alert.setContentText("Failed to place the order. Please try again.");
-                    alert.showAndWait();
-                }
-            });
-
-
-
-
             // Disable checkout button
             checkoutButton.setDisable(true);
         } else {
@@ -835,14 +961,18 @@ public class CustomerDashboard extends Application {
             HBox subtotalRow = new HBox();
             subtotalRow.setAlignment(Pos.BASELINE_RIGHT);
             Label subtotalLabel = new Label("Subtotal: ");
-            Label subtotalValue = new Label("$" + String.format("%.2f", cart.getSubtotal()));
+            // Exact cents: tax is rounded once on the subtotal and total = subtotal + tax
+            long subtotalCents = cart.getSubtotalCents();
+            long taxCents = Money.tax(subtotalCents, TAX_BASIS_POINTS);
+
+            Label subtotalValue = new Label(MoneyFormat.formatMinor(subtotalCents));
             subtotalValue.setFont(Font.font("Arial", FontWeight.BOLD, 16));
             subtotalRow.getChildren().addAll(subtotalLabel, subtotalValue);
 
             HBox taxRow = new HBox();
             taxRow.setAlignment(Pos.BASELINE_RIGHT);
             Label taxLabel = new Label("Tax (10%): ");
-            Label taxValue = new Label("$" + String.format("%.2f", cart.getSubtotal() * 0.1));
+            Label taxValue = new Label(MoneyFormat.formatMinor(taxCents));
             taxRow.getChildren().addAll(taxLabel, taxValue);
 
             Separator separator = new Separator();
@@ -851,7 +981,7 @@ public class CustomerDashboard extends Application {
             HBox totalRow = new HBox();
             totalRow.setAlignment(Pos.BASELINE_RIGHT);
             Label totalLabel = new Label("Total: ");
-            Label totalValue = new Label("$" + String.format("%.2f", cart.getSubtotal() * 1.1));
+            Label totalValue = new Label(MoneyFormat.formatMinor(Money.add(subtotalCents, taxCents)));
             totalValue.setFont(Font.font("Arial", FontWeight.BOLD, 18));
             totalRow.getChildren().addAll(totalLabel, totalValue);
 
@@ -863,15 +993,55 @@ public class CustomerDashboard extends Application {
 
         dialogPane.setContent(content);
 
+        // A filter rather than onAction: consuming the event keeps the dialog open (and the
+        // button disabled) until the order has gone through
+        checkoutButton.addEventFilter(ActionEvent.ACTION, e -> {
+            e.consume();
+            if (cart.getItems().isEmpty()) {
+                return;
+            }
+            if (!SessionRegistry.isSignedIn()) {
+                Alert alert = new Alert(Alert.AlertType.WARNING);
+                alert.setTitle("Sign In Required");
+                alert.setHeaderText(null);
+                alert.setContentText("Your session has ended. Please log in again to place your order.");
+                alert.showAndWait();
+                return;
+            }
+            int userId = getCurrentUserId();
 
+            checkoutButton.setDisable(true);
+            MiddlewareAsync.placeOrder(userId, cart.getItems()).whenCompleteAsync((success, error) -> {
+                checkoutButton.setDisable(false);
+                if (error == null && success) {
+                    Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                    alert.setTitle("Order Confirmation");
+                    alert.setHeaderText("Order Completed");
+                    alert.setContentText("Your order has been placed successfully and saved in the database.");
+                    alert.showAndWait(); // Show confirmation before closing
+
+                    cart.clearCart(); // Clear the cart after placing order
+                    updateCartCounter(); // Update the cart counter in UI
+                    dialog.close();
+                } else {
+                    Alert alert = new Alert(Alert.AlertType.ERROR);
+                    alert.setTitle("Order Failed");
+                    alert.setHeaderText("Error!");
+                    alert.setContentText(error != null && MiddlewareAsync.isTimeout(error)
+                            ? "The server took too long to respond. Please check your orders before retrying."
+                            : "Failed to place the order. Please try again.");
+                    alert.showAndWait();
+                }
+            }, MiddlewareAsync.FX_THREAD);
+        });
 
         // Show dialog
         dialog.showAndWait();
     }
 
+    // Signed-in user from the session loaded at login (no query); the guest id if nobody is
     private int getCurrentUserId() {
-        // TODO: Replace this with actual user authentication logic
-        return 1; // Change this to dynamically fetch the logged-in user ID
+        return SessionRegistry.getCurrentUserId();
     }
 
 
@@ -959,7 +1129,7 @@ public class CustomerDashboard extends Application {
         quantityControl.getChildren().addAll(decreaseBtn, quantityLabel, increaseBtn);
 
         // Price
-        Label priceLabel = new Label("$" + String.format("%.2f", item.getProduct().getPrice() * item.getQuantity()));
+        Label priceLabel = new Label(MoneyFormat.formatMinor(item.getLineTotalCents()));
         priceLabel.setFont(Font.font("Arial", FontWeight.BOLD, 14));
 
         // Remove button
@@ -1235,151 +1405,248 @@ public class CustomerDashboard extends Application {
         return result.isPresent() && result.get() == ButtonType.OK;
     }
 
-    @SuppressWarnings("unchecked")
     private void loadProducts() {
-        File file = new File(PRODUCT_FILE);
+        Path productFile = Paths.get(PRODUCT_FILE);
 
-        if (!file.exists()) {
+        if (!Files.exists(productFile)) {
             System.out.println("No product file found. Using default products.");
             createDefaultProducts();
             return;
         }
 
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-            Object obj = ois.readObject();
-            if (obj instanceof List) {
-                List<AdminDashboard.Product> loadedProducts = (List<AdminDashboard.Product>) obj;
-                products.clear();
-                products.addAll(loadedProducts);
+        try {
+            CatalogMigrator.migrateIfNeeded(productFile);
+            // Catalog file plus the admin's change log, so recent edits are included
+            products.setStore(VersionedCatalog.readStore(productFile));
 
-                // Update UI if it's already created
-                if (productContainer != null) {
-                    javafx.application.Platform.runLater(this::refreshProductDisplay);
-                }
+            // Update UI if it's already created
+            if (productContainer != null) {
+                javafx.application.Platform.runLater(this::refreshProductDisplay);
             }
-        } catch (IOException | ClassNotFoundException e) {
+        } catch (IOException e) {
             e.printStackTrace();
             System.out.println("Error loading products: " + e.getMessage());
         }
     }
 
+    // Called on the watcher thread; patch the product list on the FX thread
+    private void applyCatalogDiff(CatalogDiff diff) {
+        javafx.application.Platform.runLater(() -> {
+            if (!diff.getRemoved().isEmpty()) {
+                Set<Integer> removedIds = new HashSet<>();
+                for (AdminDashboard.Product product : diff.getRemoved()) {
+                    removedIds.add(product.getId());
+                }
+                products.removeIf(product -> removedIds.contains(product.getId()));
+            }
+
+            // Found by id, without touching the unchanged products
+            for (AdminDashboard.Product updated : diff.getChanged()) {
+                int index = products.indexOf(updated);
+                if (index >= 0) {
+                    products.set(index, updated);
+                }
+            }
+
+            products.addAll(diff.getAdded());
+
+            if (categoryButtons != null) {
+                refreshCategoryButtons();
+            }
+            if (productContainer != null) {
+                showSelectedCategories();
+            }
+        });
+    }
+
     private void createDefaultProducts() {
-        products.clear();
+        List<AdminDashboard.Product> defaults = new ArrayList<>();
 
-        products.add(new AdminDashboard.Product("Smartphone XS Pro", "Electronics", 999.99,
+        defaults.add(new AdminDashboard.Product("Smartphone XS Pro", "Electronics", 999.99,
                 "Latest flagship smartphone with advanced camera system and AI capabilities.", 45));
 
-        products.add(new AdminDashboard.Product("Wireless Headphones", "Electronics", 149.99,
+        defaults.add(new AdminDashboard.Product("Wireless Headphones", "Electronics", 149.99,
                 "Premium wireless headphones with noise cancellation and 30-hour battery life.", 78));
 
-        products.add(new AdminDashboard.Product("Smart Watch", "Electronics", 249.99,
+        defaults.add(new AdminDashboard.Product("Smart Watch", "Electronics", 249.99,
                 "Fitness and health tracking smartwatch with heart rate monitor and GPS.", 32));
 
-        products.add(new AdminDashboard.Product("Cotton T-Shirt", "Clothing", 24.99,
+        defaults.add(new AdminDashboard.Product("Cotton T-Shirt", "Clothing", 24.99,
                 "Soft, comfortable cotton t-shirt available in multiple colors.", 120));
 
-        products.add(new AdminDashboard.Product("Slim Fit Jeans", "Clothing", 59.99,
+        defaults.add(new AdminDashboard.Product("Slim Fit Jeans", "Clothing", 59.99,
                 "Classic slim fit jeans with stretch fabric for comfort.", 85));
 
-        products.add(new AdminDashboard.Product("Running Shoes", "Clothing", 89.99,
+        defaults.add(new AdminDashboard.Product("Running Shoes", "Clothing", 89.99,
                 "Lightweight running shoes with responsive cushioning.", 64));
 
-        products.add(new AdminDashboard.Product("Air Fryer", "Home & Kitchen", 79.99,
+        defaults.add(new AdminDashboard.Product("Air Fryer", "Home & Kitchen", 79.99,
                 "Digital air fryer for healthier cooking with multiple presets.", 25));
 
-        products.add(new AdminDashboard.Product("Coffee Maker", "Home & Kitchen", 69.99,
+        defaults.add(new AdminDashboard.Product("Coffee Maker", "Home & Kitchen", 69.99,
                 "Programmable coffee maker with thermal carafe.", 42));
 
-        products.add(new AdminDashboard.Product("Bedding Set", "Home & Kitchen", 129.99,
+        defaults.add(new AdminDashboard.Product("Bedding Set", "Home & Kitchen", 129.99,
                 "100% cotton bedding set including duvet cover and pillowcases.", 36));
 
-        products.add(new AdminDashboard.Product("Bestselling Novel", "Books", 14.99,
+        defaults.add(new AdminDashboard.Product("Bestselling Novel", "Books", 14.99,
                 "Latest bestselling fiction novel from award-winning author.", 110));
 
-        products.add(new AdminDashboard.Product("Cookbook", "Books", 29.99,
+        defaults.add(new AdminDashboard.Product("Cookbook", "Books", 29.99,
                 "Illustrated cookbook with 100+ recipes for beginners.", 55));
 
-        products.add(new AdminDashboard.Product("Board Game", "Toys & Games", 34.99,
+        defaults.add(new AdminDashboard.Product("Board Game", "Toys & Games", 34.99,
                 "Strategic board game for 2-6 players, ages 10 and up.", 28));
 
-        products.add(new AdminDashboard.Product("STEM Building Kit", "Toys & Games", 49.99,
+        defaults.add(new AdminDashboard.Product("STEM Building Kit", "Toys & Games", 49.99,
                 "Educational building kit that teaches engineering concepts.", 37));
+
+        // Give the defaults distinct ids; cards, diffs and the product list are keyed by id
+        for (int i = 0; i < defaults.size(); i++) {
+            defaults.get(i).setId(i + 1);
+        }
+        products.setAll(defaults);
     }
 
+    // Cart lines keyed by product id, with running totals: lookups, quantity changes, line
+    // removal and totals are O(1) regardless of how many lines the cart has. The map is
+    // insertion-ordered, so lines stay in the order they were added.
     public static class ShoppingCart {
-        private final ObservableList<CartItem> items = FXCollections.observableArrayList();
+        private final Map<Integer, CartItem> items = new LinkedHashMap<>();
+        private final Collection<CartItem> readOnlyItems = Collections.unmodifiableCollection(items.values());
+        private int itemCount;
+        private long subtotalCents;
+        private ChangeListener changeListener;
+
+        // Told about every quantity change and clear, e.g. to persist the cart
+        public interface ChangeListener {
+            void quantityChanged(CartItem item, int delta);
+
+            void cartCleared();
+        }
+
+        public void setChangeListener(ChangeListener changeListener) {
+            this.changeListener = changeListener;
+        }
 
         public void addItem(AdminDashboard.Product product) {
-            for (CartItem item : items) {
-                if (item.getProduct().getName().equals(product.getName())) {
-                    item.incrementQuantity();
-                    return;
-                }
+            addItem(product, 1);
+        }
+
+        public void addItem(AdminDashboard.Product product, int quantity) {
+            if (quantity <= 0) {
+                return;
+            }
+            CartItem item = items.get(product.getId());
+            if (item == null) {
+                // If the product is not already in the cart
+                item = attach(new CartItem(product, 0));
             }
+            changeQuantity(item, quantity);
+        }
 
-            // If the product is not already in the cart
-            items.add(new CartItem(product, 1));
+        // Put back a saved line at the given price without notifying the listener
+        public void restoreItem(AdminDashboard.Product product, int quantity, long unitPriceCents) {
+            if (quantity <= 0 || items.containsKey(product.getId())) {
+                return;
+            }
+            CartItem item = attach(new CartItem(product, quantity, unitPriceCents));
+            itemCount += quantity;
+            subtotalCents = Money.add(subtotalCents, item.getLineTotalCents());
         }
 
         public void removeItem(AdminDashboard.Product product) {
-            items.removeIf(item -> item.getProduct().getName().equals(product.getName()));
+            CartItem item = items.get(product.getId());
+            if (item != null) {
+                changeQuantity(item, -item.getQuantity());
+                detach(item);
+            }
         }
 
         public void decreaseQuantity(AdminDashboard.Product product) {
-            for (CartItem item : items) {
-                if (item.getProduct().getName().equals(product.getName())) {
-                    item.decrementQuantity();
-                    if (item.getQuantity() <= 0) {
-                        items.remove(item);
-                    }
-                    return;
+            CartItem item = items.get(product.getId());
+            if (item != null) {
+                changeQuantity(item, -1);
+                if (item.getQuantity() <= 0) {
+                    detach(item);
                 }
             }
         }
 
         public void increaseQuantity(AdminDashboard.Product product) {
-            for (CartItem item : items) {
-                if (item.getProduct().getName().equals(product.getName())) {
-                    item.incrementQuantity();
-                    return;
-                }
+            CartItem item = items.get(product.getId());
+            if (item != null) {
+                changeQuantity(item, 1);
             }
         }
 
-        public ObservableList<CartItem> getItems() {
-            return items;
+        public CartItem getItem(AdminDashboard.Product product) {
+            return items.get(product.getId());
+        }
+
+        // Read-only view in display order; change the cart through its methods so the totals stay right
+        public Collection<CartItem> getItems() {
+            return readOnlyItems;
         }
 
         public int getItemCount() {
-            int count = 0;
-            for (CartItem item : items) {
-                count += item.getQuantity();
-            }
-            return count;
+            return itemCount;
         }
 
         public int getTotalQuantity() {
             return getItemCount();
         }
 
+        // Exact subtotal in cents
+        public long getSubtotalCents() {
+            return subtotalCents;
+        }
+
         public double getSubtotal() {
-            double total = 0;
-            for (CartItem item : items) {
-                total += item.getProduct().getPrice() * item.getQuantity();
-            }
-            return total;
+            return Money.toMajor(subtotalCents);
         }
 
         public void clearCart() {
             items.clear();
+            itemCount = 0;
+            subtotalCents = 0;
+            if (changeListener != null) {
+                changeListener.cartCleared();
+            }
+        }
+
+        private void changeQuantity(CartItem item, int delta) {
+            item.quantity += delta;
+            itemCount += delta;
+            subtotalCents = Money.add(subtotalCents, Money.multiply(item.unitPriceCents, delta));
+            if (changeListener != null) {
+                changeListener.quantityChanged(item, delta);
+            }
+        }
+
+        private CartItem attach(CartItem item) {
+            items.put(item.getProduct().getId(), item);
+            return item;
+        }
+
+        private void detach(CartItem item) {
+            items.remove(item.getProduct().getId());
         }
 
         public static class CartItem {
             private final AdminDashboard.Product product;
+            // Price in cents when the product was put in the cart or the cart was restored;
+            // checkout charges the price in the products table
+            private final long unitPriceCents;
             private int quantity;
 
             public CartItem(AdminDashboard.Product product, int quantity) {
+                this(product, quantity, Money.toMinor(product.getPrice()));
+            }
+
+            public CartItem(AdminDashboard.Product product, int quantity, long unitPriceCents) {
                 this.product = product;
+                this.unitPriceCents = unitPriceCents;
                 this.quantity = quantity;
             }
 
@@ -1391,18 +1658,12 @@ public class CustomerDashboard extends Application {
                 return quantity;
             }
 
-            public void setQuantity(int quantity) {
-                this.quantity = quantity;
-            }
-
-            public void incrementQuantity() {
-                quantity++;
+            public long getUnitPriceCents() {
+                return unitPriceCents;
             }
 
-            public void decrementQuantity() {
-                if (quantity > 0) {
-                    quantity--;
-                }
+            public long getLineTotalCents() {
+                return Money.multiply(unitPriceCents, quantity);
             }
         }
     }
@@ -0,0 +1,145 @@
+// Log.java
+package com.lude.app.Logging;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.lude.app.Metrics.MetricsRegistry;
+
+// Asynchronous structured logging for the data layer.
+//
+// A log call captures the event (level, source, message, key/value fields, correlation id,
+// thread) into a lock-free ring buffer and returns; formatting and all console and file
+// I/O happen on one daemon writer thread (LogWriter). If the buffer is full the event is
+// dropped and counted (log.dropped) rather than making checkout or login wait.
+//
+// Usage:
+//   private static final Logger LOG = Log.get(OrderEngine.class);
+//   LOG.info("Order placed", "orderId", orderId, "userId", userId);
+//   try (Log.Operation op = Log.beginOperation("order")) { ... }
+//
+// Every event logged on a thread inside beginOperation carries that operation's id
+// (op=order-42), so all lines from one checkout can be found together.
+public final class Log {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    // Override with -Dnepshop.log.<name>=<value>; an empty file name turns file output off
+    private static final Level THRESHOLD = parseLevel(System.getProperty("nepshop.log.level", "INFO"));
+    private static final int BUFFER_SIZE = Integer.getInteger("nepshop.log.bufferSize", 8192);
+    private static final String FILE = System.getProperty("nepshop.log.file", "logs/nepshop.log");
+    private static final long MAX_FILE_BYTES = Long.getLong("nepshop.log.maxFileBytes", 10L * 1024 * 1024);
+    private static final int MAX_FILES = Integer.getInteger("nepshop.log.maxFiles", 5);
+    private static final boolean CONSOLE = Boolean.parseBoolean(System.getProperty("nepshop.log.console", "true"));
+
+    private static final LogRingBuffer buffer = new LogRingBuffer(BUFFER_SIZE);
+    private static final LongAdder dropped = MetricsRegistry.counter("log.dropped");
+    private static final ThreadLocal<String> correlationId = new ThreadLocal<>();
+    private static final AtomicLong nextOperation = new AtomicLong();
+
+    static {
+        Path file = FILE.isEmpty() ? null : Paths.get(FILE);
+        LogWriter writer = new LogWriter(buffer, file, MAX_FILE_BYTES, MAX_FILES, CONSOLE, dropped::sum);
+        Thread thread = new Thread(writer, "log-writer");
+        thread.setDaemon(true);
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> writer.stop(2_000), "log-final-flush"));
+
+        MetricsRegistry.gauge("log.buffered", buffer::size);
+        MetricsRegistry.gauge("log.bufferCapacity", buffer::capacity);
+    }
+
+    private Log() {
+    }
+
+    public static Logger get(Class<?> type) {
+        return new Logger(type.getSimpleName());
+    }
+
+    public static Logger get(String source) {
+        return new Logger(source);
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(THRESHOLD) >= 0 && level != Level.OFF;
+    }
+
+    // Start a correlated operation on this thread; close() restores whatever was there before,
+    // so operations can nest (the inner id wins while it is open)
+    public static Operation beginOperation(String name) {
+        String id = name + "-" + nextOperation.incrementAndGet();
+        String previous = correlationId.get();
+        correlationId.set(id);
+        return new Operation(id, previous);
+    }
+
+    // Id of the operation open on this thread, or null
+    public static String currentCorrelationId() {
+        return correlationId.get();
+    }
+
+    // Carry the caller's correlation id over to the thread that runs the task
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        String id = correlationId.get();
+        if (id == null) {
+            return task;
+        }
+        return () -> {
+            String previous = correlationId.get();
+            correlationId.set(id);
+            try {
+                return task.get();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    public static long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    static void publish(Level level, String source, String message, Object[] fields, Throwable error) {
+        if (!buffer.offer(new LogEvent(level, source, message, fields, error))) {
+            dropped.increment();
+        }
+    }
+
+    private static void restore(String previous) {
+        if (previous == null) {
+            correlationId.remove();
+        } else {
+            correlationId.set(previous);
+        }
+    }
+
+    private static Level parseLevel(String name) {
+        try {
+            return Level.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown log level '" + name + "', using INFO");
+            return Level.INFO;
+        }
+    }
+
+    public static final class Operation implements AutoCloseable {
+        private final String id;
+        private final String previous;
+
+        private Operation(String id, String previous) {
+            this.id = id;
+            this.previous = previous;
+        }
+
+        public String getId() { return id; }
+
+        @Override
+        public void close() {
+            restore(previous);
+        }
+    }
+}
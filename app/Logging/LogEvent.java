@@ -0,0 +1,27 @@
+// LogEvent.java
+package com.lude.app.Logging;
+
+// One log call, as captured on the caller's thread. Nothing is formatted here; the
+// writer thread turns it into text later.
+final class LogEvent {
+    final long timestampMillis;
+    final Log.Level level;
+    final String source;
+    final String message;
+    // Alternating key, value, key, value ...
+    final Object[] fields;
+    final Throwable error;
+    final String correlationId;
+    final String threadName;
+
+    LogEvent(Log.Level level, String source, String message, Object[] fields, Throwable error) {
+        this.timestampMillis = System.currentTimeMillis();
+        this.level = level;
+        this.source = source;
+        this.message = message;
+        this.fields = fields;
+        this.error = error;
+        this.correlationId = Log.currentCorrelationId();
+        this.threadName = Thread.currentThread().getName();
+    }
+}
@@ -0,0 +1,77 @@
+// LogRingBuffer.java
+package com.lude.app.Logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bounded lock-free queue between any number of logging threads and the single writer
+// thread.
+//
+// Each slot carries a sequence number that says whose turn it is: a producer may fill
+// slot i at position p when its sequence is p, and publishes it by setting p + 1; the
+// consumer takes it at p + 1 and hands it back for the next lap by setting p + capacity.
+// Producers race only on one compareAndSet of the tail; nobody ever blocks or waits, and
+// a full buffer makes offer() return false instead.
+final class LogRingBuffer {
+
+    private final LogEvent[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Only the writer thread touches head
+    private long head;
+
+    LogRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        slots = new LogEvent[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+    }
+
+    // Called by any thread; false if the buffer is full
+    boolean offer(LogEvent event) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = event;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                // Another producer took this position first
+                position = tail.get();
+            }
+        }
+    }
+
+    // Called by the writer thread only; null when nothing has been published
+    LogEvent poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        LogEvent event = slots[index];
+        slots[index] = null;
+        sequences.lazySet(index, head + slots.length);
+        head++;
+        return event;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    // Approximate, for the gauge
+    int size() {
+        return (int) Math.max(0, Math.min(slots.length, tail.get() - head));
+    }
+}
@@ -0,0 +1,263 @@
+// LogWriter.java
+package com.lude.app.Logging;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+// The single thread that drains the ring buffer, formats events as logfmt lines
+// (key=value, one event per line) and writes them to the console and a rolling file.
+//
+// Rolling: when the file would grow past maxBytes it is renamed to nepshop.log.1, older
+// files shift up by one and the oldest beyond maxFiles is deleted. If the file can't be
+// written, file output is turned off with one message on stderr and the console keeps
+// working; logging never throws back into the app.
+final class LogWriter implements Runnable {
+
+    // How long the writer sleeps when the buffer is empty; the most a line waits to be written
+    private static final long IDLE_PARK_NANOS = 5_000_000L;
+
+    private final LogRingBuffer buffer;
+    private final Path file;
+    private final long maxBytes;
+    private final int maxFiles;
+    private final boolean console;
+    private final LongSupplier droppedCount;
+
+    private final StringBuilder line = new StringBuilder(256);
+    private OutputStream out;
+    private long fileBytes;
+    private long droppedReported;
+    private volatile boolean stopping;
+    private volatile Thread thread;
+
+    LogWriter(LogRingBuffer buffer, Path file, long maxBytes, int maxFiles, boolean console, LongSupplier droppedCount) {
+        this.buffer = buffer;
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.maxFiles = Math.max(1, maxFiles);
+        this.console = console;
+        this.droppedCount = droppedCount;
+    }
+
+    @Override
+    public void run() {
+        thread = Thread.currentThread();
+        openFile();
+        while (!stopping) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+        drain();
+        closeFile();
+    }
+
+    // Write whatever is still buffered and stop; called from the shutdown hook
+    void stop(long timeoutMillis) {
+        stopping = true;
+        Thread writer = thread;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join(timeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private int drain() {
+        int written = 0;
+        LogEvent event;
+        while ((event = buffer.poll()) != null) {
+            write(event);
+            written++;
+        }
+        long dropped = droppedCount.getAsLong();
+        if (dropped > droppedReported) {
+            write(new LogEvent(Log.Level.WARN, "Log", "Log buffer full, events dropped",
+                    new Object[]{"dropped", dropped - droppedReported}, null));
+            droppedReported = dropped;
+            written++;
+        }
+        if (written > 0) {
+            flush();
+        }
+        return written;
+    }
+
+    private void write(LogEvent event) {
+        line.setLength(0);
+        format(event);
+        String text = line.toString();
+
+        if (console) {
+            PrintStream stream = event.level.compareTo(Log.Level.WARN) >= 0 ? System.err : System.out;
+            stream.print(text);
+        }
+        if (out != null) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            try {
+                if (fileBytes > 0 && fileBytes + bytes.length > maxBytes) {
+                    roll();
+                }
+                if (out != null) {
+                    out.write(bytes);
+                    fileBytes += bytes.length;
+                }
+            } catch (IOException e) {
+                fileFailed(e);
+            }
+        }
+    }
+
+    private void format(LogEvent event) {
+        line.append("ts=").append(DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(event.timestampMillis)));
+        line.append(" level=").append(event.level);
+        line.append(" source=");
+        appendValue(event.source);
+        if (event.correlationId != null) {
+            line.append(" op=");
+            appendValue(event.correlationId);
+        }
+        line.append(" thread=");
+        appendValue(event.threadName);
+        line.append(" msg=");
+        appendValue(event.message);
+
+        Object[] fields = event.fields;
+        if (fields != null) {
+            for (int i = 0; i + 1 < fields.length; i += 2) {
+                line.append(' ').append(fields[i]).append('=');
+                appendValue(fields[i + 1]);
+            }
+        }
+        if (event.error != null) {
+            line.append(" error=");
+            appendValue(event.error.getClass().getSimpleName() + ": " + event.error.getMessage());
+        }
+        line.append('\n');
+
+        // Stack traces only for errors, indented so they stay visibly part of the event
+        if (event.error != null && event.level == Log.Level.ERROR) {
+            appendStackTrace(event.error);
+        }
+    }
+
+    // Bare when it is a simple token, otherwise quoted with \" \\ \n \r \t escaped
+    private void appendValue(Object value) {
+        String text = String.valueOf(value);
+        boolean quote = text.isEmpty();
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c <= ' ' || c == '=' || c == '"' || c == '\\';
+        }
+        if (!quote) {
+            line.append(text);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"': line.append("\\\""); break;
+                case '\\': line.append("\\\\"); break;
+                case '\n': line.append("\\n"); break;
+                case '\r': line.append("\\r"); break;
+                case '\t': line.append("\\t"); break;
+                default: line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private void appendStackTrace(Throwable error) {
+        Throwable current = error;
+        for (int depth = 0; current != null && depth < 5; depth++) {
+            if (depth > 0) {
+                line.append("\tCaused by: ").append(current).append('\n');
+            }
+            for (StackTraceElement frame : current.getStackTrace()) {
+                line.append("\t  at ").append(frame).append('\n');
+            }
+            current = current.getCause();
+        }
+    }
+
+    private void openFile() {
+        if (file == null) {
+            return;
+        }
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+            fileBytes = Files.exists(file) ? Files.size(file) : 0;
+            out = new BufferedOutputStream(Files.newOutputStream(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+        } catch (IOException e) {
+            fileFailed(e);
+        }
+    }
+
+    // nepshop.log -> nepshop.log.1 -> nepshop.log.2 ... ; the last one is dropped
+    private void roll() throws IOException {
+        out.close();
+        out = null;
+        Files.deleteIfExists(rolled(maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path from = rolled(i);
+            if (Files.exists(from)) {
+                Files.move(from, rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+        openFile();
+    }
+
+    private Path rolled(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void flush() {
+        if (console) {
+            System.out.flush();
+        }
+        if (out != null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                fileFailed(e);
+            }
+        }
+    }
+
+    private void fileFailed(IOException e) {
+        System.err.println("Log file " + file + " is not writable, logging to the console only: " + e.getMessage());
+        closeFile();
+    }
+
+    private void closeFile() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // nothing left to report it to
+        }
+        out = null;
+    }
+}
@@ -0,0 +1,52 @@
+// Logger.java
+package com.lude.app.Logging;
+
+// Named entry point for one class's log events; get one with Log.get and keep it in a
+// static field.
+//
+// Fields are alternating key/value pairs: info("Order placed", "orderId", 42, "userId", 7).
+// Values are turned into text later, on the writer thread, so pass immutable values
+// (numbers, strings), not objects that may change after the call.
+public final class Logger {
+
+    private final String source;
+
+    Logger(String source) {
+        this.source = source;
+    }
+
+    public boolean isDebugEnabled() {
+        return Log.isEnabled(Log.Level.DEBUG);
+    }
+
+    public void debug(String message, Object... fields) {
+        log(Log.Level.DEBUG, message, null, fields);
+    }
+
+    public void info(String message, Object... fields) {
+        log(Log.Level.INFO, message, null, fields);
+    }
+
+    public void warn(String message, Object... fields) {
+        log(Log.Level.WARN, message, null, fields);
+    }
+
+    public void warn(String message, Throwable error, Object... fields) {
+        log(Log.Level.WARN, message, error, fields);
+    }
+
+    public void error(String message, Object... fields) {
+        log(Log.Level.ERROR, message, null, fields);
+    }
+
+    // Includes the stack trace
+    public void error(String message, Throwable error, Object... fields) {
+        log(Log.Level.ERROR, message, error, fields);
+    }
+
+    private void log(Log.Level level, String message, Throwable error, Object[] fields) {
+        if (Log.isEnabled(level)) {
+            Log.publish(level, source, message, fields, error);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.lude.app;
 
+import com.lude.app.Metrics.MetricsReporter;
 import com.lude.app.Middleware.Middleware;
+import com.lude.app.Middleware.MiddlewareAsync;
 import javafx.animation.FadeTransition;
 import javafx.animation.TranslateTransition;
 import javafx.application.Application;
@@ -32,6 +34,8 @@ public class Main extends Application {
 
     @Override
     public void start(Stage primaryStage) {
+        MetricsReporter.start();
+
         // Main container with stack pane for responsiveness
         StackPane mainContainer = new StackPane();
 
@@ -301,14 +305,21 @@ public class Main extends Application {
                 return;
             }
 
-            // Normal user login
-            String role = Middleware.login(email, password);
-            if (role != null) {
-                primaryStage.close(); // Close login window
-                Middleware.redirectToDashboard(role); // Redirect based on user role
-            } else {
-                showAlert(Alert.AlertType.ERROR, "Login Failed", "Invalid email or password.");
-            }
+            // Normal user login (off the FX thread; the button stays disabled until it answers)
+            loginButton.setDisable(true);
+            MiddlewareAsync.login(email, password).whenCompleteAsync((role, error) -> {
+                loginButton.setDisable(false);
+                if (error != null) {
+                    showAlert(Alert.AlertType.ERROR, "Login Failed", MiddlewareAsync.isTimeout(error)
+                            ? "The server took too long to respond. Please try again."
+                            : "Could not reach the server: " + MiddlewareAsync.rootCause(error).getMessage());
+                } else if (role != null) {
+                    primaryStage.close(); // Close login window
+                    Middleware.redirectToDashboard(role); // Redirect based on user role
+                } else {
+                    showAlert(Alert.AlertType.ERROR, "Login Failed", "Invalid email or password.");
+                }
+            }, MiddlewareAsync.FX_THREAD);
         });
 
 
@@ -0,0 +1,124 @@
+// LatencyHistogram.java
+package com.lude.app.Metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free latency histogram with HDR-style log-linear microsecond buckets.
+// Values below 8 us get a bucket each; above that, every power-of-two range is split
+// into 8 equal sub-buckets, so a bucket is never wider than 1/8 of its lower edge.
+// Recording is a couple of atomic adds, so it can sit on every query. Percentiles are
+// reported as the upper edge of the bucket they fall in, i.e. within 12.5%.
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Covers up to 2^40 us (about 12 days)
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketFor(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+        long max;
+        do {
+            max = maxNanos.get();
+        } while (nanos > max && !maxNanos.compareAndSet(max, nanos));
+    }
+
+    private static int bucketFor(long nanos) {
+        long micros = nanos / 1_000;
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int sub = (int) (micros >>> shift) & (SUB_BUCKETS - 1);
+        int bucket = SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    // Upper edge of a bucket in nanoseconds
+    private static long bucketLimitNanos(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return (bucket + 1) * 1_000L;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        int sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << shift) * 1_000L;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public long getMeanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / n;
+    }
+
+    // e.g. percentile(0.99); 0 when nothing was recorded
+    public long percentileNanos(double quantile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(bucketLimitNanos(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    // Bucket counts, for exporting the full distribution (see getBucketLimitNanos)
+    public long[] getBucketCounts() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    // Upper edges of the buckets returned by getBucketCounts
+    public static long[] getBucketLimitNanos() {
+        long[] limits = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            limits[i] = bucketLimitNanos(i);
+        }
+        return limits;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, mean=%.2f ms, p50=%.2f ms, p99=%.2f ms, max=%.2f ms",
+                getCount(), getMeanNanos() / 1e6, percentileNanos(0.50) / 1e6,
+                percentileNanos(0.99) / 1e6, getMaxNanos() / 1e6);
+    }
+}
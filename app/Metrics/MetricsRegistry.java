@@ -0,0 +1,151 @@
+// MetricsRegistry.java
+package com.lude.app.Metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+// Process-wide named metrics: counters, gauges and latency histograms.
+//
+// Lookups are a ConcurrentHashMap get, so hot paths should look a metric up once and keep
+// it in a static field. Updating is lock-free (LongAdder / LatencyHistogram); gauges are
+// read only when a snapshot is taken. Names are dotted, e.g. "middleware.login" or
+// "db.connection.acquire", and a name belongs to exactly one kind of metric.
+public class MetricsRegistry {
+
+    private static final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, DoubleSupplier> gauges = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    private static final long startedAtMillis = System.currentTimeMillis();
+
+    private MetricsRegistry() {
+    }
+
+    public static LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    // Publish a histogram that lives elsewhere (e.g. per SQL statement) under this name
+    public static void register(String name, LatencyHistogram histogram) {
+        LatencyHistogram existing = histograms.putIfAbsent(name, histogram);
+        if (existing != null && existing != histogram) {
+            throw new IllegalStateException("Histogram " + name + " is already registered");
+        }
+    }
+
+    // Value computed when a snapshot is taken; a later registration replaces an earlier one
+    public static void gauge(String name, DoubleSupplier value) {
+        gauges.put(name, value);
+    }
+
+    // Elapsed time since start, for the common "long start = System.nanoTime()" pattern
+    public static void recordSince(LatencyHistogram histogram, long startNanos) {
+        histogram.record(System.nanoTime() - startNanos);
+    }
+
+    // Human-readable dump, one metric per line, sorted by name
+    public static String toText() {
+        StringBuilder text = new StringBuilder();
+        text.append("uptime: ").append((System.currentTimeMillis() - startedAtMillis) / 1000).append(" s\n");
+
+        text.append("\ncounters\n");
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+            text.append("  ").append(entry.getKey()).append(" = ").append(entry.getValue().sum()).append('\n');
+        }
+
+        text.append("\ngauges\n");
+        for (Map.Entry<String, DoubleSupplier> entry : new TreeMap<>(gauges).entrySet()) {
+            text.append("  ").append(entry.getKey()).append(" = ").append(formatGauge(read(entry.getValue()))).append('\n');
+        }
+
+        text.append("\nlatency\n");
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            if (entry.getValue().getCount() > 0) {
+                text.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    // Same snapshot as JSON; latencies in microseconds
+    public static String toJson() {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\"timestampMillis\":").append(System.currentTimeMillis());
+        json.append(",\"uptimeMillis\":").append(System.currentTimeMillis() - startedAtMillis);
+
+        json.append(",\"counters\":{");
+        boolean first = true;
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+            json.append(first ? "" : ",").append(quote(entry.getKey())).append(':').append(entry.getValue().sum());
+            first = false;
+        }
+
+        json.append("},\"gauges\":{");
+        first = true;
+        for (Map.Entry<String, DoubleSupplier> entry : new TreeMap<>(gauges).entrySet()) {
+            double value = read(entry.getValue());
+            json.append(first ? "" : ",").append(quote(entry.getKey())).append(':')
+                    .append(Double.isFinite(value) ? formatGauge(value) : "null");
+            first = false;
+        }
+
+        json.append("},\"histograms\":{");
+        first = true;
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            json.append(first ? "" : ",").append(quote(entry.getKey())).append(":{")
+                    .append("\"count\":").append(histogram.getCount())
+                    .append(",\"meanUs\":").append(histogram.getMeanNanos() / 1_000)
+                    .append(",\"p50Us\":").append(histogram.percentileNanos(0.50) / 1_000)
+                    .append(",\"p90Us\":").append(histogram.percentileNanos(0.90) / 1_000)
+                    .append(",\"p99Us\":").append(histogram.percentileNanos(0.99) / 1_000)
+                    .append(",\"p999Us\":").append(histogram.percentileNanos(0.999) / 1_000)
+                    .append(",\"maxUs\":").append(histogram.getMaxNanos() / 1_000)
+                    .append('}');
+            first = false;
+        }
+        return json.append("}}").toString();
+    }
+
+    // A failing gauge must not break the whole snapshot
+    private static double read(DoubleSupplier gauge) {
+        try {
+            return gauge.getAsDouble();
+        } catch (RuntimeException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static String formatGauge(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return String.format("%.4f", value);
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,70 @@
+// MetricsReporter.java
+package com.lude.app.Metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.lude.app.Logging.Log;
+import com.lude.app.Logging.Logger;
+
+// Writes MetricsRegistry snapshots to metrics/metrics.txt and metrics/metrics.json on a
+// daemon thread, and once more at shutdown. Each file is replaced atomically, so a
+// reader never sees half a dump.
+public class MetricsReporter {
+
+    private static final Logger LOG = Log.get(MetricsReporter.class);
+
+    // Override with -Dnepshop.metrics.<name>=<value>; an interval of 0 turns dumping off
+    private static final long DUMP_INTERVAL_MS = Long.getLong("nepshop.metrics.dumpIntervalMs", 60_000L);
+    private static final Path DUMP_DIRECTORY = Paths.get(System.getProperty("nepshop.metrics.dir", "metrics"));
+
+    private static final AtomicBoolean started = new AtomicBoolean();
+
+    private MetricsReporter() {
+    }
+
+    // Start the periodic dump; later calls do nothing
+    public static void start() {
+        if (DUMP_INTERVAL_MS <= 0 || !started.compareAndSet(false, true)) {
+            return;
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(MetricsReporter::dumpQuietly, DUMP_INTERVAL_MS, DUMP_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(MetricsReporter::dumpQuietly, "metrics-final-dump"));
+    }
+
+    // Write both files now; returns the directory they are in
+    public static Path dump() throws IOException {
+        Files.createDirectories(DUMP_DIRECTORY);
+        write(DUMP_DIRECTORY.resolve("metrics.txt"), MetricsRegistry.toText());
+        write(DUMP_DIRECTORY.resolve("metrics.json"), MetricsRegistry.toJson());
+        return DUMP_DIRECTORY.toAbsolutePath();
+    }
+
+    private static void dumpQuietly() {
+        try {
+            dump();
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Error writing metrics", e, "directory", DUMP_DIRECTORY);
+        }
+    }
+
+    private static void write(Path target, String content) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(temp, content.getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,205 @@
+// AuthService.java
+package com.lude.app.Middleware;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.lude.app.BackEnd.BackEnd;
+import com.lude.app.Logging.Log;
+import com.lude.app.Logging.Logger;
+import com.lude.app.Metrics.MetricsRegistry;
+
+// Password login with a real KDF, without letting the KDF take over the machine.
+//
+// Hashing and verification run on a small dedicated pool with a bounded queue; when a
+// login storm fills it, further logins are refused right away (RejectedExecutionException)
+// instead of queueing CPU work behind everything else. A successful login creates a
+// session in SessionRegistry with a random token. Logging in again with the same email and
+// password while the session is alive is checked against the cached session (an HMAC of
+// the password under a per-process key) and skips the KDF.
+//
+// Stored passwords without the PBKDF2 prefix (written before hashing existed) still
+// verify and are rehashed on the next successful login.
+public class AuthService {
+
+    private static final Logger LOG = Log.get(AuthService.class);
+
+    // Override with -Dnepshop.auth.<name>=<value>
+    private static final int PBKDF2_ITERATIONS = Integer.getInteger("nepshop.auth.pbkdf2.iterations", 210_000);
+    private static final int KDF_THREADS = Integer.getInteger("nepshop.auth.kdfThreads",
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    private static final int KDF_QUEUE_SIZE = Integer.getInteger("nepshop.auth.kdfQueueSize", 64);
+
+    // Id and role come along with the password so the session needs no second query
+    private static final StatementRegistry.SqlStatement FIND_USER = StatementRegistry.register("users.findByEmail",
+            "SELECT user_id, user_role, password FROM users WHERE email = ?");
+    private static final StatementRegistry.SqlStatement UPDATE_PASSWORD = StatementRegistry.register("users.updatePassword",
+            "UPDATE users SET password = ? WHERE user_id = ?");
+
+    private static final PasswordHasher hasher = new Pbkdf2PasswordHasher(PBKDF2_ITERATIONS);
+    private static final ThreadPoolExecutor kdfExecutor = createKdfExecutor();
+
+    private static final SecureRandom random = new SecureRandom();
+    private static final byte[] credentialKey = randomBytes(32);
+
+    private static final LongAdder kdfRuns = new LongAdder();
+    private static final LongAdder cachedLogins = new LongAdder();
+    private static final LongAdder rejectedLogins = new LongAdder();
+
+    static {
+        MetricsRegistry.gauge("auth.kdfRuns", kdfRuns::sum);
+        MetricsRegistry.gauge("auth.cachedLogins", cachedLogins::sum);
+        MetricsRegistry.gauge("auth.rejectedLogins", rejectedLogins::sum);
+        MetricsRegistry.gauge("auth.kdfQueue", () -> kdfExecutor.getQueue().size());
+        MetricsRegistry.gauge("auth.sessions", SessionRegistry::size);
+    }
+
+    private AuthService() {
+    }
+
+    private static ThreadPoolExecutor createKdfExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(KDF_THREADS, KDF_THREADS, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(KDF_QUEUE_SIZE),
+                r -> {
+                    Thread t = new Thread(r, "auth-kdf-" + threadNumber.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Session for valid credentials, null for a wrong email or password.
+    // Throws RejectedExecutionException when too many logins are already being verified.
+    public static SessionRegistry.UserSession login(String email, String password) throws SQLException {
+        String emailKey = normalize(email);
+        byte[] credentialMac = mac(emailKey, password);
+
+        SessionRegistry.UserSession cached = SessionRegistry.findByEmail(emailKey);
+        if (cached != null && MessageDigest.isEqual(cached.getCredentialMac(), credentialMac)) {
+            cachedLogins.increment();
+            return cached;
+        }
+
+        int userId;
+        String role;
+        String stored;
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            conn = BackEnd.getConnection();
+            pstmt = FIND_USER.prepare(conn);
+            pstmt.setString(1, email);
+            rs = pstmt.executeQuery();
+            if (!rs.next()) {
+                // Burn the same CPU as a real check so response time doesn't reveal which emails exist
+                runKdf(() -> hasher.hash(password.toCharArray()));
+                return null;
+            }
+            userId = rs.getInt("user_id");
+            role = rs.getString("user_role");
+            stored = rs.getString("password");
+        } finally {
+            BackEnd.closeResources(conn, pstmt, rs);
+        }
+
+        if (!runKdf(() -> hasher.verify(password.toCharArray(), stored))) {
+            return null;
+        }
+        if (hasher.needsRehash(stored)) {
+            upgradeHash(userId, password);
+        }
+
+        return SessionRegistry.open(newToken(), userId, role, emailKey, credentialMac);
+    }
+
+    // Hash a new password on the KDF pool (blocks the caller until done)
+    public static String hashPassword(String password) {
+        return runKdf(() -> hasher.hash(password.toCharArray()));
+    }
+
+    private static void upgradeHash(int userId, String password) {
+        String upgraded = hashPassword(password);
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        try {
+            conn = BackEnd.getConnection();
+            pstmt = UPDATE_PASSWORD.prepare(conn);
+            pstmt.setString(1, upgraded);
+            pstmt.setInt(2, userId);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            // The login itself succeeded; try again next time
+            LOG.warn("Error upgrading password hash", e, "userId", userId);
+        } finally {
+            BackEnd.closeResources(conn, pstmt, null);
+        }
+    }
+
+    private static <T> T runKdf(Callable<T> work) {
+        Future<T> future;
+        try {
+            future = kdfExecutor.submit(work);
+        } catch (RejectedExecutionException e) {
+            rejectedLogins.increment();
+            throw new RejectedExecutionException("Too many logins in progress, please try again", e);
+        }
+        kdfRuns.increment();
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while checking password", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password check failed", e.getCause());
+        }
+    }
+
+    static String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static byte[] mac(String emailKey, String password) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(credentialKey, "HmacSHA256"));
+            mac.update(emailKey.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static String newToken() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes(32));
+    }
+
+    private static byte[] randomBytes(int count) {
+        byte[] bytes = new byte[count];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
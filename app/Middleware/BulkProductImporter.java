@@ -0,0 +1,453 @@
+// BulkProductImporter.java
+package com.lude.app.Middleware;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.lude.app.AdminDashboard;
+import com.lude.app.BackEnd.BackEnd;
+import com.lude.app.Catalog.ProductFileReader;
+import com.lude.app.Logging.Log;
+import com.lude.app.Logging.Logger;
+import com.lude.app.Metrics.LatencyHistogram;
+import com.lude.app.Metrics.MetricsRegistry;
+
+// Imports a supplier catalog file (CSV or JSON, see ProductFileReader) into the products table.
+//
+// Three stages run concurrently:
+//   read      one thread streams the file and cuts it into batches of rows
+//   validate  a small pool checks and converts batches in parallel
+//   write     the calling thread inserts each batch with one multi-row INSERT, on one
+//             connection, committing every ROWS_PER_TRANSACTION rows
+// A bounded queue between reading and writing keeps memory flat whatever the file size;
+// batches are written in file order. Rows that carry an id replace the existing product
+// with that id (INSERT ... ON DUPLICATE KEY UPDATE); rows without one get a new id.
+// Invalid rows are skipped and counted. If the database fails, the open transaction is
+// rolled back and the import stops; earlier transactions stay committed and are reported.
+// The product cache is invalidated once, at the end.
+public class BulkProductImporter {
+
+    private static final Logger LOG = Log.get(BulkProductImporter.class);
+
+    // Override with -Dnepshop.import.<name>=<value>
+    private static final int ROWS_PER_INSERT = Integer.getInteger("nepshop.import.rowsPerInsert", 1_000);
+    private static final int ROWS_PER_TRANSACTION = Integer.getInteger("nepshop.import.rowsPerTransaction", 20_000);
+    private static final int VALIDATION_THREADS = Integer.getInteger("nepshop.import.validationThreads",
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+
+    private static final int MAX_REJECTS_REPORTED = 100;
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final int MAX_CATEGORY_LENGTH = 100;
+    private static final int MAX_DESCRIPTION_LENGTH = 65_535 / 4; // TEXT is 64 KB of up to 4-byte UTF-8
+    // DECIMAL(12,2)
+    private static final BigDecimal MAX_PRICE = new BigDecimal("9999999999.99");
+
+    private static final String COLUMNS = "name, category, price, stock, description";
+    private static final StatementRegistry.SqlStatement UPSERT = StatementRegistry.register("products.import.upsert",
+            buildUpsertSql(ROWS_PER_INSERT));
+    private static final StatementRegistry.SqlStatement INSERT = StatementRegistry.register("products.import.insert",
+            buildInsertSql(ROWS_PER_INSERT));
+
+    private static final LatencyHistogram BATCH_WRITE_LATENCY = MetricsRegistry.histogram("import.batchWrite");
+    private static final LongAdder ROWS_IMPORTED = MetricsRegistry.counter("import.rowsImported");
+    private static final LongAdder ROWS_REJECTED = MetricsRegistry.counter("import.rowsRejected");
+
+    public interface ProgressListener {
+        // Called on the importing thread after every written batch
+        void onProgress(Progress progress);
+    }
+
+    private BulkProductImporter() {
+    }
+
+    // Runs the import on its own thread
+    public static CompletableFuture<ImportResult> start(Path file, ProgressListener listener) {
+        CompletableFuture<ImportResult> result = new CompletableFuture<>();
+        Thread importer = new Thread(() -> {
+            try {
+                result.complete(run(file, listener));
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }, "product-import");
+        importer.setDaemon(true);
+        importer.start();
+        return result;
+    }
+
+    // Blocks until the whole file is processed; IOException if the file can't be read at all
+    public static ImportResult run(Path file, ProgressListener listener) throws IOException {
+        long start = System.nanoTime();
+        ImportResult result = new ImportResult();
+        ProductFileReader reader = ProductFileReader.open(file);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService validators = Executors.newFixedThreadPool(VALIDATION_THREADS, r -> {
+            Thread t = new Thread(r, "product-import-validate-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        // Validated batches in file order; an empty batch marks the end of the file
+        BlockingQueue<Future<Batch>> batches = new ArrayBlockingQueue<>(VALIDATION_THREADS * 2);
+        Thread readerThread = new Thread(() -> readBatches(reader, validators, batches), "product-import-read");
+        readerThread.setDaemon(true);
+        readerThread.start();
+
+        Connection conn = null;
+        int uncommitted = 0;
+        try {
+            conn = BackEnd.getConnection();
+            conn.setAutoCommit(false);
+            while (true) {
+                Batch batch = batches.take().get();
+                if (batch.end) {
+                    break;
+                }
+                result.rowsRead += batch.rowsRead;
+                result.addRejects(batch.rejects);
+
+                long writeStart = System.nanoTime();
+                write(conn, batch.withId, true);
+                write(conn, batch.withoutId, false);
+                MetricsRegistry.recordSince(BATCH_WRITE_LATENCY, writeStart);
+                ROWS_REJECTED.add(batch.rejects.size());
+                uncommitted += batch.withId.size() + batch.withoutId.size();
+                result.pending.addAll(batch.withId);
+                result.pending.addAll(batch.withoutId);
+                if (uncommitted >= ROWS_PER_TRANSACTION) {
+                    conn.commit();
+                    result.commitPending();
+                    uncommitted = 0;
+                }
+
+                if (listener != null) {
+                    listener.onProgress(new Progress(result.rowsRead, result.products.size() + result.pending.size(),
+                            result.rejected, reader.getBytesRead(), reader.getTotalBytes()));
+                }
+            }
+            conn.commit();
+            result.commitPending();
+        } catch (SQLException e) {
+            rollbackQuietly(conn);
+            result.error = "Database error after " + result.products.size() + " committed rows: " + e.getMessage();
+        } catch (ExecutionException e) {
+            rollbackQuietly(conn);
+            Throwable cause = e.getCause();
+            result.error = cause instanceof IOException
+                    ? "Could not read file: " + cause.getMessage()
+                    : "Import failed: " + cause;
+        } catch (InterruptedException e) {
+            rollbackQuietly(conn);
+            Thread.currentThread().interrupt();
+            result.error = "Import interrupted";
+        } finally {
+            BackEnd.closeResources(conn, null, null);
+            readerThread.interrupt();
+            validators.shutdownNow();
+            try {
+                reader.close();
+            } catch (IOException e) {
+                LOG.warn("Error closing import file", e, "file", file.getFileName());
+            }
+            if (!result.products.isEmpty()) {
+                ProductCache.shared().invalidateAll();
+            }
+        }
+
+        result.elapsedNanos = System.nanoTime() - start;
+        LOG.info("Import finished", "file", file.getFileName(), "imported", result.products.size(),
+                "rowsRead", result.rowsRead, "rejected", result.rejected,
+                "elapsedMs", result.elapsedNanos / 1_000_000, "error", result.error);
+        return result;
+    }
+
+    private static void readBatches(ProductFileReader reader, ExecutorService validators,
+                                    BlockingQueue<Future<Batch>> batches) {
+        try {
+            try {
+                List<ProductFileReader.RawRow> rows = new ArrayList<>(ROWS_PER_INSERT);
+                ProductFileReader.RawRow row;
+                while ((row = reader.next()) != null) {
+                    rows.add(row);
+                    if (rows.size() == ROWS_PER_INSERT) {
+                        List<ProductFileReader.RawRow> full = rows;
+                        batches.put(validators.submit(() -> validate(full)));
+                        rows = new ArrayList<>(ROWS_PER_INSERT);
+                    }
+                }
+                if (!rows.isEmpty()) {
+                    List<ProductFileReader.RawRow> last = rows;
+                    batches.put(validators.submit(() -> validate(last)));
+                }
+                batches.put(CompletableFuture.completedFuture(Batch.END));
+            } catch (IOException | RuntimeException e) {
+                // Surfaces on the writer when it reaches this point of the file
+                batches.put(CompletableFuture.failedFuture(e));
+            }
+        } catch (InterruptedException e) {
+            // The writer gave up; nothing more to hand over
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Batch validate(List<ProductFileReader.RawRow> rows) {
+        Batch batch = new Batch(rows.size());
+        for (ProductFileReader.RawRow row : rows) {
+            try {
+                AdminDashboard.Product product = toProduct(row);
+                (product.getId() > 0 ? batch.withId : batch.withoutId).add(product);
+            } catch (IllegalArgumentException e) {
+                batch.rejects.add("line " + row.getLine() + ": " + e.getMessage());
+            }
+        }
+        return batch;
+    }
+
+    private static AdminDashboard.Product toProduct(ProductFileReader.RawRow row) {
+        AdminDashboard.Product product = new AdminDashboard.Product();
+
+        String id = row.get(ProductFileReader.Field.ID);
+        if (id != null) {
+            int value = parseInt(id, "id");
+            if (value <= 0) {
+                throw new IllegalArgumentException("id must be positive");
+            }
+            product.setId(value);
+        }
+
+        String name = trimToNull(row.get(ProductFileReader.Field.NAME));
+        if (name == null) {
+            throw new IllegalArgumentException("name is required");
+        }
+        if (name.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("name is longer than " + MAX_NAME_LENGTH + " characters");
+        }
+        product.setName(name);
+
+        String category = trimToNull(row.get(ProductFileReader.Field.CATEGORY));
+        if (category != null && category.length() > MAX_CATEGORY_LENGTH) {
+            throw new IllegalArgumentException("category is longer than " + MAX_CATEGORY_LENGTH + " characters");
+        }
+        product.setCategory(category);
+
+        String priceText = trimToNull(row.get(ProductFileReader.Field.PRICE));
+        if (priceText == null) {
+            throw new IllegalArgumentException("price is required");
+        }
+        BigDecimal price;
+        try {
+            price = new BigDecimal(priceText).setScale(2, RoundingMode.HALF_UP);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("price is not a number: " + priceText);
+        }
+        if (price.signum() <= 0 || price.compareTo(MAX_PRICE) > 0) {
+            throw new IllegalArgumentException("price out of range: " + priceText);
+        }
+        product.setPrice(price.doubleValue());
+
+        String stock = trimToNull(row.get(ProductFileReader.Field.STOCK));
+        int stockValue = stock == null ? 0 : parseInt(stock, "stock");
+        if (stockValue < 0) {
+            throw new IllegalArgumentException("stock cannot be negative");
+        }
+        product.setStock(stockValue);
+
+        String description = row.get(ProductFileReader.Field.DESCRIPTION);
+        if (description != null && description.length() > MAX_DESCRIPTION_LENGTH) {
+            throw new IllegalArgumentException("description is too long");
+        }
+        product.setDescription(description == null ? "" : description);
+        return product;
+    }
+
+    private static int parseInt(String text, String field) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " is not a whole number: " + text);
+        }
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static void write(Connection conn, List<AdminDashboard.Product> products, boolean withId) throws SQLException {
+        if (products.isEmpty()) {
+            return;
+        }
+        int rows = products.size();
+        PreparedStatement pstmt = null;
+        ResultSet keys = null;
+        try {
+            if (withId) {
+                pstmt = rows == ROWS_PER_INSERT ? UPSERT.prepare(conn) : UPSERT.prepareVariant(conn, buildUpsertSql(rows));
+            } else {
+                pstmt = rows == ROWS_PER_INSERT
+                        ? INSERT.prepare(conn, Statement.RETURN_GENERATED_KEYS)
+                        : INSERT.prepareVariant(conn, buildInsertSql(rows), Statement.RETURN_GENERATED_KEYS);
+            }
+            int p = 1;
+            for (AdminDashboard.Product product : products) {
+                if (withId) {
+                    pstmt.setInt(p++, product.getId());
+                }
+                pstmt.setString(p++, product.getName());
+                pstmt.setString(p++, product.getCategory());
+                pstmt.setBigDecimal(p++, BigDecimal.valueOf(product.getPrice()).setScale(2, RoundingMode.HALF_UP));
+                pstmt.setInt(p++, product.getStock());
+                pstmt.setString(p++, product.getDescription());
+            }
+            pstmt.executeUpdate();
+
+            if (!withId) {
+                // One generated key per row, in row order
+                keys = pstmt.getGeneratedKeys();
+                for (AdminDashboard.Product product : products) {
+                    if (!keys.next()) {
+                        throw new SQLException("Insert returned fewer generated keys than rows");
+                    }
+                    product.setId(keys.getInt(1));
+                }
+            }
+        } finally {
+            BackEnd.closeResources(null, pstmt, keys);
+        }
+    }
+
+    private static String buildInsertSql(int rows) {
+        return appendValues(new StringBuilder("INSERT INTO products (" + COLUMNS + ") VALUES "), rows, 5).toString();
+    }
+
+    private static String buildUpsertSql(int rows) {
+        return appendValues(new StringBuilder("INSERT INTO products (id, " + COLUMNS + ") VALUES "), rows, 6)
+                .append(" ON DUPLICATE KEY UPDATE name = VALUES(name), category = VALUES(category),")
+                .append(" price = VALUES(price), stock = VALUES(stock), description = VALUES(description)")
+                .toString();
+    }
+
+    private static StringBuilder appendValues(StringBuilder sql, int rows, int columns) {
+        for (int i = 0; i < rows; i++) {
+            sql.append(i > 0 ? ",(" : "(");
+            for (int c = 0; c < columns; c++) {
+                sql.append(c > 0 ? ", ?" : "?");
+            }
+            sql.append(')');
+        }
+        return sql;
+    }
+
+    private static void rollbackQuietly(Connection conn) {
+        if (conn == null) return;
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            LOG.warn("Error rolling back import", e);
+        }
+    }
+
+    // One validated slice of the file
+    private static final class Batch {
+        private static final Batch END = new Batch(0, true);
+
+        private final int rowsRead;
+        private final boolean end;
+        private final List<AdminDashboard.Product> withId = new ArrayList<>();
+        private final List<AdminDashboard.Product> withoutId = new ArrayList<>();
+        private final List<String> rejects = new ArrayList<>();
+
+        private Batch(int rowsRead) {
+            this(rowsRead, false);
+        }
+
+        private Batch(int rowsRead, boolean end) {
+            this.rowsRead = rowsRead;
+            this.end = end;
+        }
+    }
+
+    public static class Progress {
+        private final long rowsRead;
+        private final long rowsImported;
+        private final long rowsRejected;
+        private final long bytesRead;
+        private final long totalBytes;
+
+        private Progress(long rowsRead, long rowsImported, long rowsRejected, long bytesRead, long totalBytes) {
+            this.rowsRead = rowsRead;
+            this.rowsImported = rowsImported;
+            this.rowsRejected = rowsRejected;
+            this.bytesRead = bytesRead;
+            this.totalBytes = totalBytes;
+        }
+
+        public long getRowsRead() { return rowsRead; }
+        // Written, including the current not yet committed transaction
+        public long getRowsImported() { return rowsImported; }
+        public long getRowsRejected() { return rowsRejected; }
+
+        // Share of the file read so far, 0..1
+        public double getFraction() {
+            return totalBytes == 0 ? 1 : Math.min(1, (double) bytesRead / totalBytes);
+        }
+    }
+
+    public static class ImportResult {
+        private long rowsRead;
+        private long rejected;
+        private final List<String> rejectSamples = new ArrayList<>();
+        // Committed rows, with their ids
+        private final List<AdminDashboard.Product> products = new ArrayList<>();
+        private final List<AdminDashboard.Product> pending = new ArrayList<>();
+        private String error;
+        private long elapsedNanos;
+
+        private void addRejects(List<String> rejects) {
+            rejected += rejects.size();
+            for (String reject : rejects) {
+                if (rejectSamples.size() == MAX_REJECTS_REPORTED) {
+                    break;
+                }
+                rejectSamples.add(reject);
+            }
+        }
+
+        private void commitPending() {
+            ROWS_IMPORTED.add(pending.size());
+            products.addAll(pending);
+            pending.clear();
+        }
+
+        public long getRowsRead() { return rowsRead; }
+        public long getImportedCount() { return products.size(); }
+        public long getRejectedCount() { return rejected; }
+        // The first rejected rows with the reason, e.g. "line 12: price is required"
+        public List<String> getRejectSamples() { return rejectSamples; }
+        public List<AdminDashboard.Product> getProducts() { return products; }
+        public boolean isSuccess() { return error == null; }
+        public String getError() { return error; }
+        public long getElapsedNanos() { return elapsedNanos; }
+    }
+}
@@ -0,0 +1,233 @@
+// CartJournal.java
+package com.lude.app.Middleware;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.lude.app.Logging.Log;
+import com.lude.app.Logging.Logger;
+
+// Append-only local journal of one user's cart mutations.
+//
+// Layout (little endian):
+//   header   int magic "NEPJ", short version, short flags, int userId
+//   records  byte op, int productId, int delta, long unitPriceCents   (17 bytes each)
+//
+// Ops: QUANTITY adds delta to a line, CLEAR empties the cart, SYNCED marks that every
+// earlier record has reached the database. A torn record at the tail (crash mid-write)
+// is cut off when the journal is opened.
+final class CartJournal implements AutoCloseable {
+
+    private static final Logger LOG = Log.get(CartJournal.class);
+
+    static final int MAGIC = 0x4A50454E; // "NEPJ" read as little endian
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 12;
+    static final int RECORD_BYTES = 17;
+
+    static final byte OP_QUANTITY = 1;
+    static final byte OP_CLEAR = 2;
+    static final byte OP_SYNCED = 3;
+
+    private final Path path;
+    private final int userId;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private FileChannel channel;
+    private long recordCount;
+
+    private CartJournal(Path path, int userId) {
+        this.path = path;
+        this.userId = userId;
+    }
+
+    // Open (or create) the journal and replay it into a fresh State
+    static CartJournal open(Path path, int userId, State state) throws IOException {
+        CartJournal journal = new CartJournal(path, userId);
+        long validBytes = journal.replay(state);
+        journal.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (validBytes < HEADER_BYTES) {
+            journal.channel.truncate(0);
+            journal.channel.write(journal.header());
+            validBytes = HEADER_BYTES;
+        } else if (journal.channel.size() > validBytes) {
+            journal.channel.truncate(validBytes);
+        }
+        journal.channel.position(validBytes);
+        return journal;
+    }
+
+    // Returns the number of bytes that hold a valid header and whole records (0 = start over)
+    private long replay(State state) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_BYTES
+                || buffer.getInt() != MAGIC
+                || buffer.getShort() != VERSION) {
+            LOG.warn("Ignoring unreadable cart journal", "path", path);
+            return 0;
+        }
+        buffer.getShort(); // flags
+        if (buffer.getInt() != userId) {
+            LOG.warn("Cart journal belongs to another user, starting a new one", "path", path, "userId", userId);
+            return 0;
+        }
+
+        while (buffer.remaining() >= RECORD_BYTES) {
+            byte op = buffer.get();
+            int productId = buffer.getInt();
+            int delta = buffer.getInt();
+            long unitPriceCents = buffer.getLong();
+            state.apply(op, productId, delta, unitPriceCents);
+            recordCount++;
+        }
+        return HEADER_BYTES + recordCount * RECORD_BYTES;
+    }
+
+    // Hand the record to the OS; durability comes from sync()
+    void append(byte op, int productId, int delta, long unitPriceCents) throws IOException {
+        record.clear();
+        record.put(op).putInt(productId).putInt(delta).putLong(unitPriceCents);
+        record.flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        recordCount++;
+    }
+
+    void sync() throws IOException {
+        channel.force(false);
+    }
+
+    long getRecordCount() {
+        return recordCount;
+    }
+
+    // Replace the journal with the smallest record set that reproduces the state
+    // (temp file + atomic move, like CatalogFile)
+    void rewrite(State state) throws IOException {
+        int records = state.lines.size() + state.dirty.size() + 1;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + records * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(header());
+        int written = 0;
+
+        if (state.cleared) {
+            // Everything after a pending clear is dirty by definition
+            putRecord(buffer, OP_CLEAR, 0, 0, 0);
+            written++;
+        } else {
+            for (Map.Entry<Integer, Line> entry : state.lines.entrySet()) {
+                if (!state.dirty.containsKey(entry.getKey())) {
+                    Line line = entry.getValue();
+                    putRecord(buffer, OP_QUANTITY, entry.getKey(), line.quantity, line.unitPriceCents);
+                    written++;
+                }
+            }
+            putRecord(buffer, OP_SYNCED, 0, 0, 0);
+            written++;
+        }
+        for (Integer productId : state.dirty.keySet()) {
+            Line line = state.lines.get(productId);
+            // A zero delta on an absent line still marks it dirty, so the pending delete survives
+            putRecord(buffer, OP_QUANTITY, productId, line == null ? 0 : line.quantity, line == null ? 0 : line.unitPriceCents);
+            written++;
+        }
+        buffer.flip();
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(false);
+        }
+        channel.close();
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        recordCount = written;
+    }
+
+    private ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putInt(userId);
+        header.flip();
+        return header;
+    }
+
+    private static void putRecord(ByteBuffer buffer, byte op, int productId, int delta, long unitPriceCents) {
+        buffer.put(op).putInt(productId).putInt(delta).putLong(unitPriceCents);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    // Cart lines plus what still has to reach the database.
+    // Replay and live mutations go through the same apply() so they can't disagree.
+    static final class State {
+        // Insertion order = cart order
+        final Map<Integer, Line> lines = new LinkedHashMap<>();
+        // productId -> version of the last mutation not yet written to cart_items
+        final Map<Integer, Long> dirty = new HashMap<>();
+        // A clear that hasn't reached the database yet
+        boolean cleared;
+        long clearedVersion;
+        long version;
+
+        void apply(byte op, int productId, int delta, long unitPriceCents) {
+            version++;
+            switch (op) {
+                case OP_QUANTITY:
+                    Line line = lines.get(productId);
+                    if (line == null) {
+                        line = new Line(unitPriceCents);
+                        lines.put(productId, line);
+                    } else if (delta >= 0) {
+                        // Additions and repricing carry the current price; removals may not
+                        line.unitPriceCents = unitPriceCents;
+                    }
+                    line.quantity += delta;
+                    if (line.quantity <= 0) {
+                        lines.remove(productId);
+                    }
+                    dirty.put(productId, version);
+                    break;
+                case OP_CLEAR:
+                    lines.clear();
+                    dirty.clear();
+                    cleared = true;
+                    clearedVersion = version;
+                    break;
+                case OP_SYNCED:
+                    dirty.clear();
+                    cleared = false;
+                    break;
+                default:
+                    LOG.warn("Skipping unknown cart journal op", "op", op);
+            }
+        }
+    }
+
+    static final class Line {
+        long unitPriceCents;
+        int quantity;
+
+        Line(long unitPriceCents) {
+            this.unitPriceCents = unitPriceCents;
+        }
+    }
+}
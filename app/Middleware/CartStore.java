@@ -0,0 +1,282 @@
+// CartStore.java
+package com.lude.app.Middleware;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+import com.lude.app.AdminDashboard;
+import com.lude.app.BackEnd.BackEnd;
+import com.lude.app.CustomerDashboard;
+import com.lude.app.Logging.Log;
+import com.lude.app.Logging.Logger;
+import com.lude.app.Metrics.LatencyHistogram;
+import com.lude.app.Metrics.MetricsRegistry;
+import com.lude.app.Pricing.Money;
+
+// Persistent cart for one user.
+//
+// Every cart change is appended to a local journal (CartJournal) on the calling thread,
+// so reopening the dashboard restores the cart from disk with no database round trip.
+// The cart_items table is written behind: a change only marks its product dirty, and a
+// background flush writes each dirty line's final quantity once. Ten +1/-1 clicks on the
+// same product between flushes become a single upsert (or delete).
+//
+// Table used:
+//   cart_items (user_id INT, product_id INT, quantity INT, unit_price DECIMAL(12,2),
+//               PRIMARY KEY (user_id, product_id))
+public class CartStore implements CustomerDashboard.ShoppingCart.ChangeListener, AutoCloseable {
+
+    private static final Logger LOG = Log.get(CartStore.class);
+
+    private static final Path CART_DIRECTORY = Paths.get("carts");
+    private static final long FLUSH_INTERVAL_MS = 2000;
+    // Compact the journal on open once it is this long and mostly superseded records
+    private static final int COMPACT_MIN_RECORDS = 256;
+
+    private static final LatencyHistogram FLUSH_LATENCY = MetricsRegistry.histogram("cart.flush");
+    private static final LongAdder FLUSH_FAILURES = MetricsRegistry.counter("cart.flush.failures");
+
+    private static final StatementRegistry.SqlStatement UPSERT = StatementRegistry.register("cart.upsertLine",
+            "INSERT INTO cart_items (user_id, product_id, quantity, unit_price) VALUES (?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE quantity = VALUES(quantity), unit_price = VALUES(unit_price)");
+    private static final StatementRegistry.SqlStatement DELETE_LINE = StatementRegistry.register("cart.deleteLine",
+            "DELETE FROM cart_items WHERE user_id = ? AND product_id = ?");
+    private static final StatementRegistry.SqlStatement DELETE_ALL = StatementRegistry.register("cart.deleteAll",
+            "DELETE FROM cart_items WHERE user_id = ?");
+
+    private final int userId;
+    private final CartJournal journal;
+    // Guarded by this
+    private final CartJournal.State state;
+    // Only one flush at a time (write-behind thread vs. close)
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService flusher;
+    private CustomerDashboard.ShoppingCart cart;
+
+    private CartStore(int userId, CartJournal journal, CartJournal.State state) {
+        this.userId = userId;
+        this.journal = journal;
+        this.state = state;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cart-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Open the user's journal and start the write-behind flush
+    public static CartStore open(int userId) throws IOException {
+        Files.createDirectories(CART_DIRECTORY);
+        Path path = CART_DIRECTORY.resolve("cart-" + userId + ".journal");
+
+        CartJournal.State state = new CartJournal.State();
+        CartJournal journal = CartJournal.open(path, userId, state);
+        long liveRecords = state.lines.size() + state.dirty.size() + 1;
+        if (journal.getRecordCount() > COMPACT_MIN_RECORDS && journal.getRecordCount() > liveRecords * 4) {
+            journal.rewrite(state);
+        }
+
+        CartStore store = new CartStore(userId, journal, state);
+        store.flusher.scheduleWithFixedDelay(store::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        return store;
+    }
+
+    // Fill the cart from the journal and record every later change to it.
+    // Lines are repriced from the current product; lines whose product is no longer in the
+    // catalog are dropped.
+    public synchronized void restoreInto(CustomerDashboard.ShoppingCart cart,
+                                         IntFunction<AdminDashboard.Product> productLookup) {
+        List<Integer> missing = new ArrayList<>();
+        Map<Integer, Long> repriced = new HashMap<>();
+        for (Map.Entry<Integer, CartJournal.Line> entry : state.lines.entrySet()) {
+            AdminDashboard.Product product = productLookup.apply(entry.getKey());
+            if (product == null) {
+                missing.add(entry.getKey());
+            } else {
+                CartJournal.Line line = entry.getValue();
+                long unitPriceCents = Money.toMinor(product.getPrice());
+                cart.restoreItem(product, line.quantity, unitPriceCents);
+                if (unitPriceCents != line.unitPriceCents) {
+                    repriced.put(entry.getKey(), unitPriceCents);
+                }
+            }
+        }
+        for (Integer productId : missing) {
+            record(CartJournal.OP_QUANTITY, productId, -state.lines.get(productId).quantity, 0);
+        }
+        // A zero-quantity change carrying the new price, so the journal and cart_items follow
+        for (Map.Entry<Integer, Long> entry : repriced.entrySet()) {
+            record(CartJournal.OP_QUANTITY, entry.getKey(), 0, entry.getValue());
+        }
+        this.cart = cart;
+        cart.setChangeListener(this);
+    }
+
+    @Override
+    public synchronized void quantityChanged(CustomerDashboard.ShoppingCart.CartItem item, int delta) {
+        record(CartJournal.OP_QUANTITY, item.getProduct().getId(), delta, item.getUnitPriceCents());
+    }
+
+    @Override
+    public synchronized void cartCleared() {
+        record(CartJournal.OP_CLEAR, 0, 0, 0);
+    }
+
+    private void record(byte op, int productId, int delta, long unitPriceCents) {
+        state.apply(op, productId, delta, unitPriceCents);
+        try {
+            journal.append(op, productId, delta, unitPriceCents);
+        } catch (IOException e) {
+            // The database copy still gets the change on the next flush
+            LOG.warn("Error writing cart journal", e, "userId", userId);
+        }
+    }
+
+    // Write every dirty line to cart_items; safe to call from any thread
+    public void flush() {
+        synchronized (flushLock) {
+            boolean clear;
+            long clearedVersion;
+            Map<Integer, Long> batch;
+            int[] productIds;
+            int[] quantities;
+            long[] unitPrices;
+
+            synchronized (this) {
+                if (state.dirty.isEmpty() && !state.cleared) {
+                    return;
+                }
+                clear = state.cleared;
+                clearedVersion = state.clearedVersion;
+                batch = new HashMap<>(state.dirty);
+                productIds = new int[batch.size()];
+                quantities = new int[batch.size()];
+                unitPrices = new long[batch.size()];
+                int i = 0;
+                for (Integer productId : batch.keySet()) {
+                    CartJournal.Line line = state.lines.get(productId);
+                    productIds[i] = productId;
+                    quantities[i] = line == null ? 0 : line.quantity;
+                    unitPrices[i] = line == null ? 0 : line.unitPriceCents;
+                    i++;
+                }
+            }
+
+            long start = System.nanoTime();
+            try {
+                writeToDatabase(clear, productIds, quantities, unitPrices);
+            } catch (SQLException e) {
+                // Lines stay dirty and are retried on the next flush
+                FLUSH_FAILURES.increment();
+                LOG.warn("Error flushing cart", e, "userId", userId);
+                return;
+            } finally {
+                MetricsRegistry.recordSince(FLUSH_LATENCY, start);
+            }
+
+            synchronized (this) {
+                // Anything changed again while the batch was in flight stays dirty
+                if (clear && state.clearedVersion == clearedVersion) {
+                    state.cleared = false;
+                }
+                for (Map.Entry<Integer, Long> entry : batch.entrySet()) {
+                    state.dirty.remove(entry.getKey(), entry.getValue());
+                }
+                try {
+                    if (state.dirty.isEmpty() && !state.cleared) {
+                        journal.append(CartJournal.OP_SYNCED, 0, 0, 0);
+                    }
+                    journal.sync();
+                } catch (IOException e) {
+                    LOG.warn("Error syncing cart journal", e, "userId", userId);
+                }
+            }
+        }
+    }
+
+    private void writeToDatabase(boolean clear, int[] productIds, int[] quantities, long[] unitPrices)
+            throws SQLException {
+        Connection conn = null;
+        try {
+            conn = BackEnd.getConnection();
+            conn.setAutoCommit(false);
+
+            if (clear) {
+                try (PreparedStatement pstmt = DELETE_ALL.prepare(conn)) {
+                    pstmt.setInt(1, userId);
+                    pstmt.executeUpdate();
+                }
+            }
+
+            try (PreparedStatement upsert = UPSERT.prepare(conn);
+                 PreparedStatement delete = DELETE_LINE.prepare(conn)) {
+                boolean upserts = false;
+                boolean deletes = false;
+                for (int i = 0; i < productIds.length; i++) {
+                    if (quantities[i] > 0) {
+                        upsert.setInt(1, userId);
+                        upsert.setInt(2, productIds[i]);
+                        upsert.setInt(3, quantities[i]);
+                        upsert.setBigDecimal(4, Money.toDecimal(unitPrices[i]));
+                        upsert.addBatch();
+                        upserts = true;
+                    } else if (!clear) {
+                        delete.setInt(1, userId);
+                        delete.setInt(2, productIds[i]);
+                        delete.addBatch();
+                        deletes = true;
+                    }
+                }
+                if (upserts) upsert.executeBatch();
+                if (deletes) delete.executeBatch();
+            }
+
+            conn.commit();
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackError) {
+                    LOG.warn("Error rolling back cart flush", rollbackError, "userId", userId);
+                }
+            }
+            throw e;
+        } finally {
+            BackEnd.closeResources(conn, null, null);
+        }
+    }
+
+    // Stop recording, push the last changes to the database and close the journal
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (cart != null) {
+                cart.setChangeListener(null);
+                cart = null;
+            }
+        }
+        // A flush already running finishes; flush() below then waits for it
+        flusher.shutdown();
+        flush();
+        try {
+            journal.sync();
+            journal.close();
+        } catch (IOException e) {
+            LOG.warn("Error closing cart journal", e, "userId", userId);
+        }
+    }
+}
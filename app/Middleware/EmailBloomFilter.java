@@ -0,0 +1,183 @@
+// EmailBloomFilter.java
+package com.lude.app.Middleware;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.lude.app.BackEnd.BackEnd;
+import com.lude.app.Logging.Log;
+import com.lude.app.Logging.Logger;
+import com.lude.app.Metrics.MetricsRegistry;
+
+// Bloom filter of registered emails (normalized), so registration can tell that an
+// email is certainly new without asking the database.
+//
+// mightContain() never returns a false negative; a positive is wrong at roughly the
+// configured rate, so callers confirm it against the users table before refusing anyone.
+// Emails are only ever added (a deleted account keeps its bits, which costs one extra
+// confirm query, never a wrong answer). The shared filter is filled from the users table
+// once, in the background, the first time it is asked for.
+public class EmailBloomFilter {
+
+    private static final Logger LOG = Log.get(EmailBloomFilter.class);
+
+    // Override with -Dnepshop.users.bloom.<name>=<value>
+    private static final int EXPECTED_EMAILS = Integer.getInteger("nepshop.users.bloom.expectedEmails", 1_000_000);
+    private static final double FALSE_POSITIVE_RATE =
+            Double.parseDouble(System.getProperty("nepshop.users.bloom.falsePositiveRate", "0.01"));
+
+    private static final StatementRegistry.SqlStatement ALL_EMAILS = StatementRegistry.register("users.allEmails",
+            "SELECT email FROM users");
+
+    private static final EmailBloomFilter SHARED = new EmailBloomFilter(EXPECTED_EMAILS, FALSE_POSITIVE_RATE);
+
+    static {
+        MetricsRegistry.gauge("users.emailFilter.negatives", () -> SHARED.negatives.sum());
+        MetricsRegistry.gauge("users.emailFilter.positives", () -> SHARED.positives.sum());
+        MetricsRegistry.gauge("users.emailFilter.falsePositives", () -> SHARED.falsePositives.sum());
+    }
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    private final AtomicBoolean loadStarted = new AtomicBoolean();
+    private volatile boolean loaded;
+
+    private final LongAdder added = new LongAdder();
+    private final LongAdder negatives = new LongAdder();
+    private final LongAdder positives = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    // Sized for expectedEmails entries at the given false positive rate
+    public EmailBloomFilter(int expectedEmails, double falsePositiveRate) {
+        int n = Math.max(1, expectedEmails);
+        double p = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        long words = Math.max(1, (m + 63) / 64);
+        if (words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bloom filter too large for " + expectedEmails + " emails");
+        }
+        this.bits = new AtomicLongArray((int) words);
+        this.bitCount = words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    // The shared filter; starts loading it from the users table on first use
+    public static EmailBloomFilter shared() {
+        SHARED.loadInBackground();
+        return SHARED;
+    }
+
+    public void add(String email) {
+        long h1 = hash(email, 0x9E3779B97F4A7C15L);
+        long h2 = hash(email, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+        added.increment();
+    }
+
+    // False means the email is certainly not registered (as far as this filter has seen)
+    public boolean mightContain(String email) {
+        long h1 = hash(email, 0x9E3779B97F4A7C15L);
+        long h2 = hash(email, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                negatives.increment();
+                return false;
+            }
+        }
+        positives.increment();
+        return true;
+    }
+
+    // Until this is true a negative answer is meaningless, since existing users aren't all in yet
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // A positive that the database then didn't confirm
+    void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    private void loadInBackground() {
+        if (loaded || !loadStarted.compareAndSet(false, true)) {
+            return;
+        }
+        Thread loader = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                int count = loadFromDatabase();
+                loaded = true;
+                LOG.info("Email filter loaded", "emails", count,
+                        "elapsedMs", (System.nanoTime() - start) / 1_000_000);
+            } catch (SQLException e) {
+                // Stay unloaded (callers fall back to the database) and retry on next use
+                LOG.warn("Error loading email filter", e);
+                loadStarted.set(false);
+            }
+        }, "email-filter-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private int loadFromDatabase() throws SQLException {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            conn = BackEnd.getConnection();
+            pstmt = ALL_EMAILS.prepare(conn);
+            // Stream rows instead of buffering the whole table (MySQL Connector/J convention)
+            pstmt.setFetchSize(Integer.MIN_VALUE);
+            rs = pstmt.executeQuery();
+            int count = 0;
+            while (rs.next()) {
+                String email = rs.getString(1);
+                if (email != null) {
+                    add(AuthService.normalize(email));
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            BackEnd.closeResources(conn, pstmt, rs);
+        }
+    }
+
+    // 64-bit FNV-1a over the UTF-8 bytes, seeded, then the murmur3 finalizer to spread the bits
+    private static long hash(String value, long seed) {
+        long h = 0xCBF29CE484222325L ^ seed;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // Counters for diagnostics
+    public String getStatsSummary() {
+        return String.format("loaded=%b, emails=%d, bits=%d, hashes=%d, negatives=%d, positives=%d, falsePositives=%d",
+                loaded, added.sum(), bitCount, hashCount, negatives.sum(), positives.sum(), falsePositives.sum());
+    }
+}
@@ -7,29 +7,101 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.List; // Added missing import
+import java.util.concurrent.atomic.LongAdder;
 
 import com.lude.app.AdminDashboard;
 import com.lude.app.BackEnd.BackEnd;
 import com.lude.app.CustomerDashboard;
+import com.lude.app.Logging.Log;
+import com.lude.app.Logging.Logger;
+import com.lude.app.Metrics.LatencyHistogram;
+import com.lude.app.Metrics.MetricsRegistry;
 import javafx.scene.control.Alert;
 import javafx.stage.Stage;
 
 public class Middleware {
 
+    private static final Logger LOG = Log.get(Middleware.class);
+
+    private static final StatementRegistry.SqlStatement INSERT_PRODUCT = StatementRegistry.register("products.insert",
+            "INSERT INTO products (name, category, price, stock, description) VALUES (?, ?, ?, ?, ?)");
+    private static final StatementRegistry.SqlStatement INSERT_PRODUCT_WITH_ID = StatementRegistry.register("products.insertWithId",
+            "INSERT INTO products (id, name, description, price, stock) VALUES (?, ?, ?, ?, ?)");
+    // users.email has a unique index (ALTER TABLE users ADD UNIQUE INDEX uq_users_email (email)),
+    // so the INSERT itself is the authoritative duplicate check, with no race against a prior SELECT
+    private static final StatementRegistry.SqlStatement INSERT_USER = StatementRegistry.register("users.insert",
+            "INSERT INTO users (first_name, last_name, email, password, date_of_birth) VALUES (?, ?, ?, ?, ?)");
+    private static final StatementRegistry.SqlStatement EMAIL_EXISTS = StatementRegistry.register("users.existsByEmail",
+            "SELECT 1 FROM users WHERE email = ? LIMIT 1");
+
+    // MySQL ER_DUP_ENTRY
+    private static final int DUPLICATE_KEY_ERROR = 1062;
+
+    // Latency of every call, and how many of them did not succeed
+    private static final LatencyHistogram SAVE_PRODUCT_LATENCY = MetricsRegistry.histogram("middleware.saveProduct");
+    private static final LongAdder SAVE_PRODUCT_FAILURES = MetricsRegistry.counter("middleware.saveProduct.failures");
+    private static final LatencyHistogram REGISTER_LATENCY = MetricsRegistry.histogram("middleware.registerUser");
+    private static final LongAdder REGISTER_FAILURES = MetricsRegistry.counter("middleware.registerUser.failures");
+    private static final LatencyHistogram LOGIN_LATENCY = MetricsRegistry.histogram("middleware.login");
+    private static final LongAdder LOGIN_FAILURES = MetricsRegistry.counter("middleware.login.failures");
+    private static final LatencyHistogram PLACE_ORDER_LATENCY = MetricsRegistry.histogram("middleware.placeOrder");
+    private static final LongAdder PLACE_ORDER_FAILURES = MetricsRegistry.counter("middleware.placeOrder.failures");
+
     // User registration method
     public static boolean saveProduct(String name, String category, double price, int stock, String description) {
+        long start = System.nanoTime();
+        boolean saved = insertProduct(name, category, price, stock, description);
+        record(SAVE_PRODUCT_LATENCY, SAVE_PRODUCT_FAILURES, start, saved);
+        return saved;
+    }
+
+    // Product with a caller-chosen id (the admin Add Product form); false if the id is taken
+    public static boolean saveProduct(int id, String name, String description, double price, int stock) {
+        long start = System.nanoTime();
+        boolean saved = insertProductWithId(id, name, description, price, stock);
+        record(SAVE_PRODUCT_LATENCY, SAVE_PRODUCT_FAILURES, start, saved);
+        return saved;
+    }
+
+    private static boolean insertProductWithId(int id, String name, String description, double price, int stock) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        try {
+            conn = BackEnd.getConnection();
+            pstmt = INSERT_PRODUCT_WITH_ID.prepare(conn);
+            pstmt.setInt(1, id);
+            pstmt.setString(2, name);
+            pstmt.setString(3, description);
+            pstmt.setDouble(4, price);
+            pstmt.setInt(5, stock);
+
+            int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0) {
+                LOG.info("Product saved", "id", id, "name", name);
+                return true;
+            }
+            LOG.warn("Product insert affected no rows", "id", id);
+            return false;
+        } catch (SQLException e) {
+            LOG.error("Error saving product", e, "id", id);
+            return false;
+        } finally {
+            BackEnd.closeResources(conn, pstmt, null);
+        }
+    }
+
+    private static boolean insertProduct(String name, String category, double price, int stock, String description) {
         Connection conn = null;
         PreparedStatement pstmt = null;
 
         try {
             conn = BackEnd.getConnection();
             if (conn == null) {
-                System.out.println("❌ Database connection failed.");
+                LOG.error("Database connection failed");
                 return false;
             }
 
-            String sql = "INSERT INTO products (name, category, price, stock, description) VALUES (?, ?, ?, ?, ?)";
-            pstmt = conn.prepareStatement(sql);
+            pstmt = INSERT_PRODUCT.prepare(conn);
             pstmt.setString(1, name);
             pstmt.setString(2, category);
             pstmt.setDouble(3, price);
@@ -39,58 +111,90 @@ public class Middleware {
             int rowsAffected = pstmt.executeUpdate();
 
             if (rowsAffected > 0) {
-                System.out.println("✅ Product saved successfully!");
+                LOG.info("Product saved", "name", name, "category", category);
                 return true;
             } else {
-                System.out.println("❌ Failed to insert product.");
+                LOG.warn("Product insert affected no rows", "name", name);
                 return false;
             }
         } catch (SQLException e) {
-            System.out.println("⚠️ SQL Error: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error saving product", e, "name", name);
             return false;
         } finally {
             BackEnd.closeResources(conn, pstmt, null);
         }
     }
 
+    // False if the email is already registered (or the insert failed)
     public static boolean registerUser(String firstName, String lastName, String email,
                                        String password, LocalDate dob) {
+        long start = System.nanoTime();
+        boolean registered = insertUser(firstName, lastName, email, password, dob);
+        record(REGISTER_LATENCY, REGISTER_FAILURES, start, registered);
+        return registered;
+    }
+
+    private static boolean insertUser(String firstName, String lastName, String email,
+                                      String password, LocalDate dob) {
+        String emailKey = AuthService.normalize(email);
+        EmailBloomFilter knownEmails = EmailBloomFilter.shared();
         Connection conn = null;
         PreparedStatement pstmt = null;
 
         try {
-            conn = BackEnd.getConnection();
-
-            // Check if email already exists
-            if (isEmailExists(conn, email)) {
-                return false;
+            // The filter can only say "maybe"; a positive is confirmed before the user is turned away.
+            // Either way a duplicate is refused before paying for the password hash.
+            if (knownEmails.isLoaded() && knownEmails.mightContain(emailKey)) {
+                if (isEmailExists(email)) {
+                    return false;
+                }
+                knownEmails.recordFalsePositive();
             }
 
-            // Insert new user
-            String sql = "INSERT INTO users (first_name, last_name, email, password, date_of_birth) " +
-                    "VALUES (?, ?, ?, ?, ?)";
+            // PBKDF2 on the auth pool, before a pooled connection is taken
+            String passwordHash = AuthService.hashPassword(password);
 
-            pstmt = conn.prepareStatement(sql);
+            // Insert new user; the unique index rejects a duplicate that slipped past the filter
+            conn = BackEnd.getConnection();
+            pstmt = INSERT_USER.prepare(conn);
             pstmt.setString(1, firstName);
             pstmt.setString(2, lastName);
             pstmt.setString(3, email);
-            pstmt.setString(4, hashPassword(password)); // Hash password
+            pstmt.setString(4, passwordHash);
             pstmt.setDate(5, java.sql.Date.valueOf(dob));
 
             int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
+            if (rowsAffected == 0) {
+                return false;
+            }
+            knownEmails.add(emailKey);
+            return true;
 
         } catch (SQLException e) {
-            System.err.println("Error registering user: " + e.getMessage());
+            if (e.getErrorCode() == DUPLICATE_KEY_ERROR) {
+                knownEmails.add(emailKey);
+                return false;
+            }
+            LOG.error("Error registering user", e);
             return false;
         } finally {
             BackEnd.closeResources(conn, pstmt, null);
         }
     }
 
-    private static boolean isEmailExists(Connection conn, String email) {
-        return false;
+    private static boolean isEmailExists(String email) throws SQLException {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            conn = BackEnd.getConnection();
+            pstmt = EMAIL_EXISTS.prepare(conn);
+            pstmt.setString(1, email);
+            rs = pstmt.executeQuery();
+            return rs.next();
+        } finally {
+            BackEnd.closeResources(conn, pstmt, rs);
+        }
     }
 
     // ✅ Fixed testConnection() method
@@ -99,102 +203,99 @@ public class Middleware {
         try {
             conn = BackEnd.getConnection();
             if (conn != null) {
-                System.out.println("✅ Database connected successfully!");
+                LOG.info("Database connected");
             } else {
-                System.out.println("❌ Failed to connect to database!");
+                LOG.error("Failed to connect to database");
             }
         } catch (Exception e) {
-            System.out.println("⚠️ Error connecting to database: " + e.getMessage());
+            LOG.error("Error connecting to database", e);
         } finally {
             if (conn != null) {
                 try {
                     conn.close(); // Close the connection
                 } catch (SQLException e) {
-                    e.printStackTrace();
+                    LOG.warn("Error closing connection", e);
                 }
             }
         }
     }
 
-    // Consolidated login method with admin credentials check
+    // Consolidated login method with admin credentials check; returns the role, or null for bad credentials.
+    // On success the user becomes SessionRegistry's current session.
     public static String login(String email, String password) {
-        Connection conn = null;
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
-
-        try {
-            conn = BackEnd.getConnection();
-
-            String sql = "SELECT user_id, user_role FROM users WHERE email = ? AND password = ?";
-            pstmt = conn.prepareStatement(sql);
-            pstmt.setString(1, email);
-            pstmt.setString(2, hashPassword(password));
-
-            rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getString("user_role");
+        long start = System.nanoTime();
+        String role = null;
+        try (Log.Operation op = Log.beginOperation("login")) {
+            LOG.debug("Login started", "operation", op.getId());
+            SessionRegistry.UserSession session = AuthService.login(email, password);
+            if (session == null) {
+                LOG.info("Login refused");
+                return null;
             }
-            return null;
+            SessionRegistry.setCurrent(session);
+            role = session.getRole();
+            LOG.info("Signed in", "userId", session.getUserId(), "role", role);
+            return role;
         } catch (SQLException e) {
-            System.err.println("Error during login: " + e.getMessage());
+            LOG.error("Error during login", e);
             return null;
         } finally {
-            BackEnd.closeResources(conn, pstmt, rs);
+            record(LOGIN_LATENCY, LOGIN_FAILURES, start, role != null);
         }
     }
 
-    // Method to place an order
+    // Method to place an order (single transaction: stock decrement + order header + line items)
     public static boolean placeOrder(int userId, List<CustomerDashboard.ShoppingCart.CartItem> cartItems) {
-        if (cartItems == null || cartItems.isEmpty()) {
-            System.out.println("⚠️ Cart is empty, nothing to order.");
-            return false;
-        }
+        long start = System.nanoTime();
+        try (Log.Operation op = Log.beginOperation("order")) {
+            LOG.debug("Placing order", "operation", op.getId(), "userId", userId, "lines", cartItems.size());
+            OrderEngine.OrderResult result = OrderEngine.placeOrder(userId, cartItems);
+            record(PLACE_ORDER_LATENCY, PLACE_ORDER_FAILURES, start, result.isSuccess());
 
-        Connection conn = null;
-        PreparedStatement pstmt = null;
-
-        try {
-            conn = BackEnd.getConnection();
-            String sql = "INSERT INTO orders (user_id, product_name, quantity, total_price) VALUES (?, ?, ?, ?)";
-            pstmt = conn.prepareStatement(sql);
-
-            for (CustomerDashboard.ShoppingCart.CartItem item : cartItems) {
-                pstmt.setInt(1, userId);
-                pstmt.setString(2, item.getProduct().getName());
-                pstmt.setInt(3, item.getQuantity());
-                pstmt.setDouble(4, item.getProduct().getPrice() * item.getQuantity());
-                pstmt.addBatch();
-            }
-
-            int[] rowsAffected = pstmt.executeBatch();
-
-            if (rowsAffected.length > 0) {
-                System.out.println("✅ Order placed successfully for User ID: " + userId);
+            if (result.isSuccess()) {
+                LOG.info("Order placed", "orderId", result.getOrderId(), "userId", userId,
+                        "items", result.getItemCount(), "latencyUs", result.getLatencyNanos() / 1_000);
                 return true;
             } else {
-                System.out.println("❌ No rows affected, order failed.");
+                LOG.warn("Order failed", "userId", userId, "reason", result.getMessage());
                 return false;
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            System.out.println("⚠️ SQL Error: " + e.getMessage());
-            return false;
-        } finally {
-            BackEnd.closeResources(conn, pstmt, null);
         }
     }
 
-    // Simple password hashing (for demonstration - use a proper hashing library in production)
-    private static String hashPassword(String password) {
-        return password; // ⚠️ Insecure! Use BCrypt or Argon2 in production.
+    private static void record(LatencyHistogram latency, LongAdder failures, long startNanos, boolean success) {
+        MetricsRegistry.recordSince(latency, startNanos);
+        if (!success) {
+            failures.increment();
+        }
     }
 
     // ✅ Main method now calls testConnection()
     public static void main(String[] args) {
-        System.out.println("🔹 Middleware running...");
+        LOG.info("Middleware running");
         testConnection(); // Call the test method when the program starts
     }
 
+    // Open the dashboard for a freshly signed-in user; call on the FX thread
     public static void redirectToDashboard(String role) {
+        try {
+            if ("admin".equalsIgnoreCase(role)) {
+                new AdminDashboard().start(new Stage());
+            } else {
+                new CustomerDashboard().start(new Stage());
+            }
+        } catch (Exception e) {
+            LOG.error("Failed to open the dashboard", e, "role", role);
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Error");
+            alert.setHeaderText(null);
+            alert.setContentText("Failed to open the dashboard: " + e.getMessage());
+            alert.showAndWait();
+        }
+    }
+
+    // Sign out the current user (their session is dropped from SessionRegistry)
+    public static void logout() {
+        SessionRegistry.endCurrent();
     }
 }
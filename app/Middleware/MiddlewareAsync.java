@@ -0,0 +1,109 @@
+// MiddlewareAsync.java
+package com.lude.app.Middleware;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import com.lude.app.CustomerDashboard;
+import com.lude.app.Logging.Log;
+import com.lude.app.Metrics.MetricsRegistry;
+import javafx.application.Platform;
+
+// Non-blocking front for Middleware, for use from JavaFX event handlers.
+//
+// Each call runs the blocking Middleware method on its own virtual thread. A semaphore
+// caps how many run at once (no point queueing more JDBC work than the pool has
+// connections), and every future fails with a TimeoutException after the timeout.
+// Continue on the FX thread with whenCompleteAsync(..., MiddlewareAsync.FX_THREAD).
+public class MiddlewareAsync {
+
+    // Override with -Dnepshop.async.<name>=<value>
+    private static final int MAX_CONCURRENT_CALLS = Integer.getInteger("nepshop.async.maxConcurrent", 10);
+    private static final long DEFAULT_TIMEOUT_MS = Long.getLong("nepshop.async.timeoutMs", 10_000L);
+
+    // Runs continuations on the JavaFX Application Thread
+    public static final Executor FX_THREAD = Platform::runLater;
+
+    private static final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private static final Semaphore permits = new Semaphore(MAX_CONCURRENT_CALLS, true);
+
+    static {
+        MetricsRegistry.gauge("async.inFlight", () -> MAX_CONCURRENT_CALLS - permits.availablePermits());
+        MetricsRegistry.gauge("async.waiting", permits::getQueueLength);
+    }
+
+    private MiddlewareAsync() {
+    }
+
+    // Completes with the user's role, or null for bad credentials
+    public static CompletableFuture<String> login(String email, String password) {
+        return submit(() -> Middleware.login(email, password));
+    }
+
+    public static CompletableFuture<Boolean> registerUser(String firstName, String lastName, String email,
+                                                          String password, LocalDate dob) {
+        return submit(() -> Middleware.registerUser(firstName, lastName, email, password, dob));
+    }
+
+    public static CompletableFuture<Boolean> saveProduct(int id, String name, String description,
+                                                         double price, int stock) {
+        return submit(() -> Middleware.saveProduct(id, name, description, price, stock));
+    }
+
+    public static CompletableFuture<Boolean> placeOrder(int userId, Collection<CustomerDashboard.ShoppingCart.CartItem> cartItems) {
+        // Copy on the caller's thread; the cart is only safe to read from the FX thread
+        List<CustomerDashboard.ShoppingCart.CartItem> snapshot = new ArrayList<>(cartItems);
+        return submit(() -> Middleware.placeOrder(userId, snapshot));
+    }
+
+    public static <T> CompletableFuture<T> submit(Supplier<T> call) {
+        return submit(call, DEFAULT_TIMEOUT_MS);
+    }
+
+    // The timeout covers waiting for a permit as well as the call itself; an operation open
+    // on the calling thread (Log.beginOperation) carries over to the call
+    public static <T> CompletableFuture<T> submit(Supplier<T> call, long timeoutMillis) {
+        Supplier<T> correlated = Log.propagate(call);
+        return CompletableFuture.supplyAsync(() -> {
+            boolean acquired = false;
+            try {
+                acquired = permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+                if (!acquired) {
+                    throw new CompletionException(new TimeoutException("Too many database calls in flight"));
+                }
+                return correlated.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            } finally {
+                if (acquired) {
+                    permits.release();
+                }
+            }
+        }, executor).orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Unwrap CompletionException so callers can show the real cause
+    public static Throwable rootCause(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    public static boolean isTimeout(Throwable error) {
+        return rootCause(error) instanceof TimeoutException;
+    }
+}
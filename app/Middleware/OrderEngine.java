@@ -0,0 +1,295 @@
+// OrderEngine.java
+package com.lude.app.Middleware;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.lude.app.AdminDashboard;
+import com.lude.app.BackEnd.BackEnd;
+import com.lude.app.CustomerDashboard;
+import com.lude.app.Logging.Log;
+import com.lude.app.Logging.Logger;
+import com.lude.app.Pricing.Money;
+
+// Places an order as a single transaction:
+//   1. lock the products rows (SELECT ... FOR UPDATE) and price every line from them, so
+//      the order is charged what the catalog says now, not what the cart saw earlier
+//   2. decrement products.stock for every line (fails if any product would go negative)
+//   3. insert one customer_orders header row
+//   4. insert all order_items rows with multi-row INSERT statements
+//
+// Tables used:
+//   customer_orders (order_id INT AUTO_INCREMENT PRIMARY KEY, user_id INT, item_count INT,
+//                    total_price DECIMAL(12,2), created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)
+//   order_items     (order_id INT, product_id INT, product_name VARCHAR(255), quantity INT,
+//                    unit_price DECIMAL(12,2), line_total DECIMAL(12,2))
+public class OrderEngine {
+
+    private static final Logger LOG = Log.get(OrderEngine.class);
+
+    // Rows per multi-row INSERT; keeps each statement well under max_allowed_packet
+    private static final int MAX_ROWS_PER_INSERT = 500;
+    private static final int ITEM_COLUMNS = 6;
+    // Product ids per locking SELECT
+    private static final int MAX_IDS_PER_LOCK = 500;
+
+    private static final String LOCK_PRODUCTS_PREFIX = "SELECT id, price FROM products WHERE id IN (";
+    private static final String LOCK_PRODUCTS_SUFFIX = ") ORDER BY id FOR UPDATE";
+    private static final StatementRegistry.SqlStatement LOCK_PRODUCTS = StatementRegistry.register("order.lockProducts",
+            buildLockSql(MAX_IDS_PER_LOCK));
+    private static final StatementRegistry.SqlStatement DECREMENT_STOCK = StatementRegistry.register("order.decrementStock",
+            "UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ?");
+    private static final StatementRegistry.SqlStatement INSERT_HEADER = StatementRegistry.register("order.insertHeader",
+            "INSERT INTO customer_orders (user_id, item_count, total_price) VALUES (?, ?, ?)");
+    private static final String INSERT_ITEMS_PREFIX =
+            "INSERT INTO order_items (order_id, product_id, product_name, quantity, unit_price, line_total) VALUES ";
+    // Full chunks share one cached statement; the last, shorter chunk is a variant
+    private static final StatementRegistry.SqlStatement INSERT_ITEMS = StatementRegistry.register("order.insertItems",
+            buildItemInsertSql(MAX_ROWS_PER_INSERT));
+
+    public static OrderResult placeOrder(int userId, List<CustomerDashboard.ShoppingCart.CartItem> cartItems) {
+        long start = System.nanoTime();
+        OrderResult result = doPlaceOrder(userId, cartItems);
+        result.latencyNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private static OrderResult doPlaceOrder(int userId, List<CustomerDashboard.ShoppingCart.CartItem> cartItems) {
+        if (cartItems == null || cartItems.isEmpty()) {
+            return OrderResult.failure("Cart is empty, nothing to order.");
+        }
+
+        // Merge duplicate lines and sort by product id so concurrent checkouts lock rows in the same order
+        Map<Integer, OrderLine> lines = new TreeMap<>();
+        for (CustomerDashboard.ShoppingCart.CartItem item : cartItems) {
+            if (item.getQuantity() <= 0) {
+                continue;
+            }
+            AdminDashboard.Product product = item.getProduct();
+            OrderLine line = lines.get(product.getId());
+            if (line == null) {
+                lines.put(product.getId(), new OrderLine(product, item.getQuantity()));
+            } else {
+                line.quantity += item.getQuantity();
+            }
+        }
+        if (lines.isEmpty()) {
+            return OrderResult.failure("Cart is empty, nothing to order.");
+        }
+
+        Connection conn = null;
+        try {
+            conn = BackEnd.getConnection();
+            conn.setAutoCommit(false);
+
+            String priceError = lockAndPrice(conn, new ArrayList<>(lines.values()));
+            if (priceError != null) {
+                conn.rollback();
+                return OrderResult.failure(priceError);
+            }
+            int itemCount = 0;
+            long orderTotalCents = 0;
+            for (OrderLine line : lines.values()) {
+                itemCount += line.quantity;
+                orderTotalCents = Money.add(orderTotalCents, line.lineTotalCents());
+            }
+
+            String stockError = decrementStock(conn, lines.values());
+            if (stockError != null) {
+                conn.rollback();
+                return OrderResult.failure(stockError);
+            }
+
+            int orderId = insertHeader(conn, userId, itemCount, orderTotalCents);
+            insertItems(conn, orderId, new ArrayList<>(lines.values()));
+
+            conn.commit();
+            return OrderResult.success(orderId, itemCount, orderTotalCents);
+        } catch (SQLException e) {
+            rollbackQuietly(conn);
+            LOG.error("Error placing order", e, "userId", userId, "lines", lines.size());
+            return OrderResult.failure("Database error: " + e.getMessage());
+        } finally {
+            BackEnd.closeResources(conn, null, null);
+        }
+    }
+
+    // Lock every ordered product row, in id order, and take each line's unit price from it.
+    // Returns an error message if a product no longer exists, otherwise null.
+    private static String lockAndPrice(Connection conn, List<OrderLine> lines) throws SQLException {
+        for (int from = 0; from < lines.size(); from += MAX_IDS_PER_LOCK) {
+            int to = Math.min(from + MAX_IDS_PER_LOCK, lines.size());
+            int rows = to - from;
+            Map<Integer, OrderLine> chunk = new TreeMap<>();
+            try (PreparedStatement pstmt = rows == MAX_IDS_PER_LOCK
+                    ? LOCK_PRODUCTS.prepare(conn)
+                    : LOCK_PRODUCTS.prepareVariant(conn, buildLockSql(rows))) {
+                for (int i = from; i < to; i++) {
+                    OrderLine line = lines.get(i);
+                    pstmt.setInt(i - from + 1, line.product.getId());
+                    chunk.put(line.product.getId(), line);
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        BigDecimal price = rs.getBigDecimal("price");
+                        if (price != null) {
+                            OrderLine line = chunk.remove(rs.getInt("id"));
+                            if (line != null) {
+                                line.unitPriceCents = Money.fromDecimal(price);
+                            }
+                        }
+                    }
+                }
+            }
+            // Whatever was not returned (or has no price) can't be sold
+            if (!chunk.isEmpty()) {
+                return chunk.values().iterator().next().product.getName() + " is no longer available";
+            }
+        }
+        return null;
+    }
+
+    // Returns an error message if any product lacks stock, otherwise null
+    private static String decrementStock(Connection conn, Iterable<OrderLine> lines) throws SQLException {
+        List<OrderLine> batched = new ArrayList<>();
+        try (PreparedStatement pstmt = DECREMENT_STOCK.prepare(conn)) {
+            for (OrderLine line : lines) {
+                pstmt.setInt(1, line.quantity);
+                pstmt.setInt(2, line.product.getId());
+                pstmt.setInt(3, line.quantity);
+                pstmt.addBatch();
+                batched.add(line);
+            }
+            int[] updated = pstmt.executeBatch();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    return "Insufficient stock for " + batched.get(i).product.getName();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int insertHeader(Connection conn, int userId, int itemCount, long orderTotalCents) throws SQLException {
+        try (PreparedStatement pstmt = INSERT_HEADER.prepare(conn, Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, itemCount);
+            pstmt.setBigDecimal(3, Money.toDecimal(orderTotalCents));
+            pstmt.executeUpdate();
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    return keys.getInt(1);
+                }
+            }
+        }
+        throw new SQLException("Order header insert returned no generated key");
+    }
+
+    private static void insertItems(Connection conn, int orderId, List<OrderLine> lines) throws SQLException {
+        for (int from = 0; from < lines.size(); from += MAX_ROWS_PER_INSERT) {
+            int to = Math.min(from + MAX_ROWS_PER_INSERT, lines.size());
+            int rows = to - from;
+            try (PreparedStatement pstmt = rows == MAX_ROWS_PER_INSERT
+                    ? INSERT_ITEMS.prepare(conn)
+                    : INSERT_ITEMS.prepareVariant(conn, buildItemInsertSql(rows))) {
+                int p = 1;
+                for (int i = from; i < to; i++) {
+                    OrderLine line = lines.get(i);
+                    pstmt.setInt(p++, orderId);
+                    pstmt.setInt(p++, line.product.getId());
+                    pstmt.setString(p++, line.product.getName());
+                    pstmt.setInt(p++, line.quantity);
+                    pstmt.setBigDecimal(p++, Money.toDecimal(line.unitPriceCents));
+                    pstmt.setBigDecimal(p++, Money.toDecimal(line.lineTotalCents()));
+                }
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    private static String buildItemInsertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_ITEMS_PREFIX.length() + rows * (ITEM_COLUMNS * 3 + 3));
+        sql.append(INSERT_ITEMS_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) sql.append(',');
+            sql.append("(?, ?, ?, ?, ?, ?)");
+        }
+        return sql.toString();
+    }
+
+    private static String buildLockSql(int ids) {
+        StringBuilder sql = new StringBuilder(LOCK_PRODUCTS_PREFIX.length() + ids * 3 + LOCK_PRODUCTS_SUFFIX.length());
+        sql.append(LOCK_PRODUCTS_PREFIX);
+        for (int i = 0; i < ids; i++) {
+            if (i > 0) sql.append(", ");
+            sql.append('?');
+        }
+        return sql.append(LOCK_PRODUCTS_SUFFIX).toString();
+    }
+
+    private static void rollbackQuietly(Connection conn) {
+        if (conn == null) return;
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            LOG.warn("Error rolling back order", e);
+        }
+    }
+
+    // One merged order line; priced from the locked products row
+    private static class OrderLine {
+        private final AdminDashboard.Product product;
+        private long unitPriceCents;
+        private int quantity;
+
+        private OrderLine(AdminDashboard.Product product, int quantity) {
+            this.product = product;
+            this.quantity = quantity;
+        }
+
+        private long lineTotalCents() {
+            return Money.multiply(unitPriceCents, quantity);
+        }
+    }
+
+    // Outcome of a checkout
+    public static class OrderResult {
+        private final boolean success;
+        private final int orderId;
+        private final int itemCount;
+        private final long totalCents;
+        private final String message;
+        private long latencyNanos;
+
+        private OrderResult(boolean success, int orderId, int itemCount, long totalCents, String message) {
+            this.success = success;
+            this.orderId = orderId;
+            this.itemCount = itemCount;
+            this.totalCents = totalCents;
+            this.message = message;
+        }
+
+        static OrderResult success(int orderId, int itemCount, long totalCents) {
+            return new OrderResult(true, orderId, itemCount, totalCents, "Order placed successfully");
+        }
+
+        static OrderResult failure(String message) {
+            return new OrderResult(false, -1, 0, 0, message);
+        }
+
+        public boolean isSuccess() { return success; }
+        public int getOrderId() { return orderId; }
+        public int getItemCount() { return itemCount; }
+        public long getTotalCents() { return totalCents; }
+        public String getMessage() { return message; }
+        public long getLatencyNanos() { return latencyNanos; }
+    }
+}
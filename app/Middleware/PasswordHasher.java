@@ -0,0 +1,15 @@
+// PasswordHasher.java
+package com.lude.app.Middleware;
+
+// Turns passwords into stored hashes and checks them. Implementations encode their
+// algorithm and cost into the stored string, so the cost can be raised later and old
+// hashes upgraded on the next successful login (see needsRehash).
+public interface PasswordHasher {
+
+    String hash(char[] password);
+
+    boolean verify(char[] password, String stored);
+
+    // True if the stored hash was made with an older algorithm or a lower cost
+    boolean needsRehash(String stored);
+}
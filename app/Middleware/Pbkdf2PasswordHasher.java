@@ -0,0 +1,114 @@
+// Pbkdf2PasswordHasher.java
+package com.lude.app.Middleware;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+// PBKDF2-HMAC-SHA256 from the JDK, stored as "pbkdf2-sha256$<iterations>$<salt>$<hash>"
+// (Base64). The iteration count is the work factor.
+//
+// Anything without the prefix is treated as a legacy plaintext password: it still
+// verifies (constant time) but always needs a rehash.
+public class Pbkdf2PasswordHasher implements PasswordHasher {
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256$";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    // Anything lower is refused when parsing a stored hash
+    private static final int MIN_ITERATIONS = 10_000;
+
+    private static final SecureRandom random = new SecureRandom();
+
+    private final int iterations;
+
+    public Pbkdf2PasswordHasher(int iterations) {
+        if (iterations < MIN_ITERATIONS) {
+            throw new IllegalArgumentException("PBKDF2 iterations must be at least " + MIN_ITERATIONS);
+        }
+        this.iterations = iterations;
+    }
+
+    @Override
+    public String hash(char[] password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = derive(password, salt, iterations);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + base64.encodeToString(salt) + "$" + base64.encodeToString(hash);
+    }
+
+    @Override
+    public boolean verify(char[] password, String stored) {
+        if (stored == null) {
+            return false;
+        }
+        if (!stored.startsWith(PREFIX)) {
+            return MessageDigest.isEqual(utf8(password), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3) {
+            return false;
+        }
+        int storedIterations;
+        byte[] salt;
+        byte[] expected;
+        try {
+            storedIterations = Integer.parseInt(parts[0]);
+            salt = Base64.getDecoder().decode(parts[1]);
+            expected = Base64.getDecoder().decode(parts[2]);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (storedIterations < MIN_ITERATIONS) {
+            return false;
+        }
+        return MessageDigest.isEqual(derive(password, salt, storedIterations), expected);
+    }
+
+    @Override
+    public boolean needsRehash(String stored) {
+        if (stored == null || !stored.startsWith(PREFIX)) {
+            return true;
+        }
+        int end = stored.indexOf('$', PREFIX.length());
+        try {
+            return end < 0 || Integer.parseInt(stored.substring(PREFIX.length(), end)) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    private static byte[] derive(char[] password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new IllegalStateException("PBKDF2 is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static byte[] utf8(char[] chars) {
+        ByteBuffer encoded = StandardCharsets.UTF_8.encode(CharBuffer.wrap(chars));
+        byte[] bytes = new byte[encoded.remaining()];
+        encoded.get(bytes);
+        Arrays.fill(encoded.array(), (byte) 0);
+        return bytes;
+    }
+}
@@ -0,0 +1,268 @@
+// ProductCache.java
+package com.lude.app.Middleware;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.lude.app.AdminDashboard;
+import com.lude.app.Metrics.MetricsRegistry;
+
+// Read-through cache of products by id, in front of ProductRepository.
+//
+// Entries expire after a TTL and the whole cache is bounded by an estimate of its
+// size in bytes; past the bound, least recently used entries are evicted first.
+// Concurrent misses for the same id share a single database load. Anything that
+// writes a product must call invalidate(id) so readers don't see the old row.
+public class ProductCache {
+
+    // Override with -Dnepshop.cache.products.<name>=<value>
+    private static final long DEFAULT_TTL_MS = Long.getLong("nepshop.cache.products.ttlMs", 60_000L);
+    private static final long DEFAULT_MAX_BYTES = Long.getLong("nepshop.cache.products.maxBytes", 16L * 1024 * 1024);
+
+    // Object headers, fields and the String objects themselves, per cached product
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    private static final ProductCache SHARED = new ProductCache(ProductRepository::findById, DEFAULT_TTL_MS, DEFAULT_MAX_BYTES);
+
+    static {
+        MetricsRegistry.gauge("cache.products.hits", () -> SHARED.hits.sum());
+        MetricsRegistry.gauge("cache.products.misses", () -> SHARED.misses.sum());
+        MetricsRegistry.gauge("cache.products.hitRate", () -> SHARED.getStats().getHitRate());
+        MetricsRegistry.gauge("cache.products.evictions", () -> SHARED.evictions.sum());
+        MetricsRegistry.gauge("cache.products.size", () -> SHARED.getStats().getSize());
+        MetricsRegistry.gauge("cache.products.bytes", () -> SHARED.getStats().getBytes());
+    }
+
+    public interface Loader {
+        AdminDashboard.Product load(int id) throws SQLException;
+    }
+
+    private final Loader loader;
+    private final long ttlNanos;
+    private final long maxBytes;
+
+    // Access-ordered, so iteration starts at the least recently used entry; guarded by this
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentBytes;
+    // Bumped by every invalidation; a load that overlapped one is not cached
+    private long invalidations;
+
+    private final Map<Integer, CompletableFuture<AdminDashboard.Product>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidationCount = new LongAdder();
+
+    public ProductCache(Loader loader, long ttlMillis, long maxBytes) {
+        this.loader = loader;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.maxBytes = maxBytes;
+    }
+
+    public static ProductCache shared() {
+        return SHARED;
+    }
+
+    // Cached product, loading it on a miss; null if the product doesn't exist
+    public AdminDashboard.Product get(int id) throws SQLException {
+        AdminDashboard.Product cached = getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        misses.increment();
+
+        long invalidationsBefore;
+        synchronized (this) {
+            invalidationsBefore = invalidations;
+        }
+        CompletableFuture<AdminDashboard.Product> mine = new CompletableFuture<>();
+        CompletableFuture<AdminDashboard.Product> shared = loading.putIfAbsent(id, mine);
+        if (shared != null) {
+            return await(shared);
+        }
+
+        try {
+            AdminDashboard.Product product = loader.load(id);
+            if (product != null) {
+                synchronized (this) {
+                    if (invalidations == invalidationsBefore) {
+                        store(id, product);
+                    }
+                }
+            }
+            mine.complete(product);
+            return product;
+        } catch (SQLException | RuntimeException e) {
+            loadFailures.increment();
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(id, mine);
+        }
+    }
+
+    // Cached product without loading; null on a miss (never touches the database)
+    public synchronized AdminDashboard.Product getIfPresent(int id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.loadedAt > ttlNanos) {
+            removeEntry(id, entry);
+            expirations.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.product;
+    }
+
+    // Seed with rows that were just read anyway, e.g. a page from ProductRepository
+    public synchronized void putAll(Collection<AdminDashboard.Product> products) {
+        for (AdminDashboard.Product product : products) {
+            store(product.getId(), product);
+        }
+    }
+
+    public synchronized void invalidate(int id) {
+        invalidations++;
+        invalidationCount.increment();
+        Entry entry = entries.get(id);
+        if (entry != null) {
+            removeEntry(id, entry);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        invalidations++;
+        invalidationCount.increment();
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    private void store(int id, AdminDashboard.Product product) {
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            currentBytes -= previous.bytes;
+        }
+        Entry entry = new Entry(product, System.nanoTime(), estimateBytes(product));
+        if (entry.bytes > maxBytes) {
+            return;
+        }
+        entries.put(id, entry);
+        currentBytes += entry.bytes;
+
+        Iterator<Map.Entry<Integer, Entry>> eldest = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            Entry evicted = eldest.next().getValue();
+            eldest.remove();
+            currentBytes -= evicted.bytes;
+            evictions.increment();
+        }
+    }
+
+    private void removeEntry(int id, Entry entry) {
+        entries.remove(id);
+        currentBytes -= entry.bytes;
+    }
+
+    private static int estimateBytes(AdminDashboard.Product product) {
+        return ENTRY_OVERHEAD_BYTES
+                + stringBytes(product.getName())
+                + stringBytes(product.getDescription())
+                + stringBytes(product.getCategory());
+    }
+
+    // Worst case of two bytes per char (non-Latin-1 text)
+    private static int stringBytes(String value) {
+        return value == null ? 0 : 2 * value.length();
+    }
+
+    private static AdminDashboard.Product await(CompletableFuture<AdminDashboard.Product> future) throws SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for product load", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), loadFailures.sum(), evictions.sum(),
+                expirations.sum(), invalidationCount.sum(), entries.size(), currentBytes);
+    }
+
+    private static final class Entry {
+        private final AdminDashboard.Product product;
+        private final long loadedAt;
+        private final int bytes;
+
+        private Entry(AdminDashboard.Product product, long loadedAt, int bytes) {
+            this.product = product;
+            this.loadedAt = loadedAt;
+            this.bytes = bytes;
+        }
+    }
+
+    // Snapshot of the cache counters
+    public static class CacheStats {
+        private final long hits;
+        private final long misses;
+        private final long loadFailures;
+        private final long evictions;
+        private final long expirations;
+        private final long invalidations;
+        private final int size;
+        private final long bytes;
+
+        CacheStats(long hits, long misses, long loadFailures, long evictions,
+                   long expirations, long invalidations, int size, long bytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.loadFailures = loadFailures;
+            this.evictions = evictions;
+            this.expirations = expirations;
+            this.invalidations = invalidations;
+            this.size = size;
+            this.bytes = bytes;
+        }
+
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getLoadFailures() { return loadFailures; }
+        public long getEvictions() { return evictions; }
+        public long getExpirations() { return expirations; }
+        public long getInvalidations() { return invalidations; }
+        public int getSize() { return size; }
+        public long getBytes() { return bytes; }
+
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d, misses=%d, hitRate=%.1f%%, loadFailures=%d, evictions=%d, "
+                            + "expirations=%d, invalidations=%d, size=%d, bytes=%d",
+                    hits, misses, getHitRate() * 100, loadFailures, evictions,
+                    expirations, invalidations, size, bytes);
+        }
+    }
+}
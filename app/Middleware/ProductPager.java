@@ -0,0 +1,86 @@
+// ProductPager.java
+package com.lude.app.Middleware;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+import com.lude.app.AdminDashboard;
+import com.lude.app.Logging.Log;
+import com.lude.app.Logging.Logger;
+
+// Streams one product listing (all products or one category) from ProductRepository,
+// a page at a time, for infinite scrolling. Call reset() to start a listing and
+// loadMore() whenever the view nears its end; pages arrive on the FX thread.
+// Must be used from the FX thread.
+public class ProductPager {
+
+    private static final Logger LOG = Log.get(ProductPager.class);
+
+    private final ProductRepository.Sort sort;
+    private final int pageSize;
+    private final Consumer<List<AdminDashboard.Product>> onPage;
+
+    private String category;
+    private ProductRepository.Cursor next;
+    private boolean loading;
+    private boolean exhausted = true;
+    // Bumped by reset() so a page from the previous listing is dropped
+    private long generation;
+
+    public ProductPager(ProductRepository.Sort sort, int pageSize, Consumer<List<AdminDashboard.Product>> onPage) {
+        this.sort = sort;
+        this.pageSize = pageSize;
+        this.onPage = onPage;
+    }
+
+    // Start over with a new listing; category null means all products
+    public void reset(String category) {
+        generation++;
+        this.category = category;
+        this.next = null;
+        this.loading = false;
+        this.exhausted = false;
+        loadMore();
+    }
+
+    // Fetch the next page unless one is already on its way or the listing is complete
+    public void loadMore() {
+        if (loading || exhausted) {
+            return;
+        }
+        loading = true;
+        long requested = generation;
+        String listingCategory = category;
+        ProductRepository.Cursor after = next;
+
+        MiddlewareAsync.submit(() -> {
+            try {
+                ProductRepository.Page page = ProductRepository.fetchPage(listingCategory, sort, after, pageSize);
+                // Detail views read these rows again; serve them from the cache
+                ProductCache.shared().putAll(page.getProducts());
+                return page;
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }).whenCompleteAsync((page, error) -> {
+            if (requested != generation) {
+                return;
+            }
+            loading = false;
+            if (error != null) {
+                // Left retryable: the next scroll to the end asks again
+                LOG.warn("Error loading products", MiddlewareAsync.rootCause(error));
+                return;
+            }
+            next = page.getNext();
+            exhausted = !page.hasMore();
+            onPage.accept(page.getProducts());
+        }, MiddlewareAsync.FX_THREAD);
+    }
+
+    public boolean isExhausted() {
+        return exhausted;
+    }
+}
@@ -0,0 +1,211 @@
+// ProductRepository.java
+package com.lude.app.Middleware;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.lude.app.AdminDashboard;
+import com.lude.app.BackEnd.BackEnd;
+
+// Reads products from the products table one page at a time.
+//
+// Pages use keyset (seek) pagination: instead of OFFSET, each page starts strictly after
+// the last row of the previous one, e.g. "WHERE (price, id) > (?, ?)". With the indexes below,
+// fetching page 1000 costs the same as fetching page 1. Category filter and sort are done
+// in SQL, and one extra row is read to know whether another page exists.
+//
+// Table used:
+//   products (id INT PRIMARY KEY, name VARCHAR(255), category VARCHAR(100), price DECIMAL(12,2),
+//             stock INT, description TEXT)
+// Indexes that keep every sort a range scan:
+//   (name, id), (price, id), (category, name, id), (category, price, id)
+public class ProductRepository {
+
+    public static final int DEFAULT_PAGE_SIZE = 60;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final String COLUMNS = "id, name, category, price, stock, description";
+    private static final StatementRegistry.SqlStatement FIND_BY_ID = StatementRegistry.register("products.findById",
+            "SELECT " + COLUMNS + " FROM products WHERE id = ?");
+
+    // The id tiebreaker makes every sort total, so a cursor identifies exactly one position
+    public enum Sort {
+        ID("id", null, false),
+        NAME("name", "name", false),
+        PRICE_LOW_TO_HIGH("price", "price", false),
+        PRICE_HIGH_TO_LOW("price", "price", true);
+
+        private final String column;
+        private final String keyColumn;
+        private final boolean descending;
+        // [hasCategory][hasCursor]
+        private final StatementRegistry.SqlStatement[][] statements = new StatementRegistry.SqlStatement[2][2];
+
+        Sort(String column, String keyColumn, boolean descending) {
+            this.column = column;
+            this.keyColumn = keyColumn;
+            this.descending = descending;
+            for (int category = 0; category < 2; category++) {
+                for (int cursor = 0; cursor < 2; cursor++) {
+                    String name = "products.page." + name().toLowerCase()
+                            + (category == 1 ? ".category" : "") + (cursor == 1 ? ".after" : "");
+                    statements[category][cursor] = StatementRegistry.register(name, buildSql(category == 1, cursor == 1));
+                }
+            }
+        }
+
+        private String buildSql(boolean hasCategory, boolean hasCursor) {
+            String direction = descending ? " DESC" : "";
+            String after = descending ? "<" : ">";
+            StringBuilder sb = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM products");
+            List<String> conditions = new ArrayList<>();
+            if (hasCategory) {
+                conditions.add("category = ?");
+            }
+            if (hasCursor) {
+                // Expanded form of (key, id) > (?, ?) so MySQL uses the index range
+                conditions.add(keyColumn == null
+                        ? "id " + after + " ?"
+                        : "(" + keyColumn + " " + after + " ? OR (" + keyColumn + " = ? AND id " + after + " ?))");
+            }
+            if (!conditions.isEmpty()) {
+                sb.append(" WHERE ").append(String.join(" AND ", conditions));
+            }
+            sb.append(" ORDER BY ");
+            if (keyColumn != null) {
+                sb.append(column).append(direction).append(", ");
+            }
+            sb.append("id").append(direction).append(" LIMIT ?");
+            return sb.toString();
+        }
+    }
+
+    // Position after the last row of a page
+    public static class Cursor {
+        private final Sort sort;
+        private final Object lastKey;
+        private final int lastId;
+
+        private Cursor(Sort sort, Object lastKey, int lastId) {
+            this.sort = sort;
+            this.lastKey = lastKey;
+            this.lastId = lastId;
+        }
+
+        public int getLastId() { return lastId; }
+    }
+
+    public static class Page {
+        private final List<AdminDashboard.Product> products;
+        private final Cursor next;
+
+        private Page(List<AdminDashboard.Product> products, Cursor next) {
+            this.products = products;
+            this.next = next;
+        }
+
+        public List<AdminDashboard.Product> getProducts() { return products; }
+        // Cursor for the following page, or null if this was the last one
+        public Cursor getNext() { return next; }
+        public boolean hasMore() { return next != null; }
+    }
+
+    // First page
+    public static Page fetchPage(String category, Sort sort, int pageSize) throws SQLException {
+        return fetchPage(category, sort, null, pageSize);
+    }
+
+    // Page that starts after the cursor; category may be null for all products
+    public static Page fetchPage(String category, Sort sort, Cursor after, int pageSize) throws SQLException {
+        if (after != null && after.sort != sort) {
+            throw new IllegalArgumentException("Cursor was created for sort " + after.sort + ", not " + sort);
+        }
+        int limit = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        boolean hasCategory = category != null;
+        StatementRegistry.SqlStatement statement = sort.statements[hasCategory ? 1 : 0][after != null ? 1 : 0];
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            conn = BackEnd.getConnection();
+            pstmt = statement.prepare(conn);
+            int p = 1;
+            if (hasCategory) {
+                pstmt.setString(p++, category);
+            }
+            if (after != null) {
+                if (sort.keyColumn != null) {
+                    pstmt.setObject(p++, after.lastKey);
+                    pstmt.setObject(p++, after.lastKey);
+                }
+                pstmt.setInt(p++, after.lastId);
+            }
+            // One extra row tells us whether there is a next page
+            pstmt.setInt(p, limit + 1);
+            pstmt.setFetchSize(limit + 1);
+
+            rs = pstmt.executeQuery();
+            List<AdminDashboard.Product> products = new ArrayList<>(limit);
+            Object lastKey = null;
+            boolean more = false;
+            while (rs.next()) {
+                if (products.size() == limit) {
+                    more = true;
+                    break;
+                }
+                products.add(mapRow(rs));
+                lastKey = keyOf(sort, rs);
+            }
+
+            Cursor next = null;
+            if (more) {
+                next = new Cursor(sort, lastKey, products.get(products.size() - 1).getId());
+            }
+            return new Page(products, next);
+        } finally {
+            BackEnd.closeResources(conn, pstmt, rs);
+        }
+    }
+
+    // Single product by id, or null if there is none
+    public static AdminDashboard.Product findById(int id) throws SQLException {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            conn = BackEnd.getConnection();
+            pstmt = FIND_BY_ID.prepare(conn);
+            pstmt.setInt(1, id);
+            rs = pstmt.executeQuery();
+            return rs.next() ? mapRow(rs) : null;
+        } finally {
+            BackEnd.closeResources(conn, pstmt, rs);
+        }
+    }
+
+    // The raw sort-key value, so the next page compares against exactly what the database stored
+    private static Object keyOf(Sort sort, ResultSet rs) throws SQLException {
+        if (sort.keyColumn == null) {
+            return null;
+        }
+        return "price".equals(sort.keyColumn) ? rs.getBigDecimal("price") : rs.getString(sort.keyColumn);
+    }
+
+    static AdminDashboard.Product mapRow(ResultSet rs) throws SQLException {
+        AdminDashboard.Product product = new AdminDashboard.Product();
+        product.setId(rs.getInt("id"));
+        product.setName(rs.getString("name"));
+        product.setCategory(rs.getString("category"));
+        BigDecimal price = rs.getBigDecimal("price");
+        product.setPrice(price == null ? 0 : price.doubleValue());
+        product.setStock(rs.getInt("stock"));
+        product.setDescription(rs.getString("description"));
+        return product;
+    }
+}
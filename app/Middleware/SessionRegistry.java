@@ -0,0 +1,153 @@
+// SessionRegistry.java
+package com.lude.app.Middleware;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// In-process registry of signed-in users.
+//
+// A session (user id, role) is built once at login from the same query that checks the
+// password, then read by cart, checkout and order code with no further queries. Sessions
+// expire after a period of inactivity (every lookup pushes the expiry forward) and are
+// dropped lazily when touched, or in bulk when the registry is full. The desktop app signs
+// in one user at a time; that session is the "current" one.
+public class SessionRegistry {
+
+    // Override with -Dnepshop.session.<name>=<value>; ttlMs is the idle timeout
+    private static final long SESSION_TTL_MS = Long.getLong("nepshop.session.ttlMs", 30 * 60_000L);
+    private static final int MAX_SESSIONS = Integer.getInteger("nepshop.session.maxSessions", 10_000);
+
+    // Not a real user; used when nobody is signed in (e.g. a dashboard launched on its own)
+    public static final int GUEST_USER_ID = 0;
+
+    private static final ConcurrentMap<String, UserSession> sessionsByToken = new ConcurrentHashMap<>();
+    // Normalized email -> newest session, for repeat logins
+    private static final ConcurrentMap<String, UserSession> sessionsByEmail = new ConcurrentHashMap<>();
+    private static volatile UserSession current;
+
+    private SessionRegistry() {
+    }
+
+    static UserSession open(String token, int userId, String role, String emailKey, byte[] credentialMac) {
+        UserSession session = new UserSession(token, userId, role, emailKey, credentialMac,
+                System.currentTimeMillis() + SESSION_TTL_MS);
+        if (sessionsByToken.size() >= MAX_SESSIONS) {
+            purgeExpired();
+        }
+        if (sessionsByToken.size() >= MAX_SESSIONS) {
+            // Still full of live sessions: drop the one closest to expiry
+            UserSession oldest = null;
+            for (UserSession candidate : sessionsByToken.values()) {
+                if (oldest == null || candidate.expiresAtMillis < oldest.expiresAtMillis) {
+                    oldest = candidate;
+                }
+            }
+            if (oldest != null) {
+                remove(oldest);
+            }
+        }
+        UserSession previous = sessionsByEmail.put(emailKey, session);
+        if (previous != null) {
+            sessionsByToken.remove(previous.token, previous);
+        }
+        sessionsByToken.put(token, session);
+        return session;
+    }
+
+    static UserSession findByEmail(String emailKey) {
+        return live(sessionsByEmail.get(emailKey));
+    }
+
+    public static void setCurrent(UserSession session) {
+        current = session;
+    }
+
+    // The signed-in user of this app, or null; counts as activity
+    public static UserSession getCurrent() {
+        UserSession session = live(current);
+        if (session == null) {
+            current = null;
+        }
+        return session;
+    }
+
+    public static int getCurrentUserId() {
+        UserSession session = getCurrent();
+        return session != null ? session.userId : GUEST_USER_ID;
+    }
+
+    public static boolean isSignedIn() {
+        return getCurrent() != null;
+    }
+
+    // Sign out the current user
+    public static void endCurrent() {
+        UserSession session = current;
+        current = null;
+        if (session != null) {
+            remove(session);
+        }
+    }
+
+    public static int size() {
+        return sessionsByToken.size();
+    }
+
+    // The session if it hasn't expired, with its expiry slid forward
+    private static UserSession live(UserSession session) {
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now >= session.expiresAtMillis) {
+            remove(session);
+            return null;
+        }
+        session.expiresAtMillis = now + SESSION_TTL_MS;
+        return session;
+    }
+
+    private static void purgeExpired() {
+        for (Map.Entry<String, UserSession> entry : sessionsByToken.entrySet()) {
+            if (entry.getValue().isExpired()) {
+                remove(entry.getValue());
+            }
+        }
+    }
+
+    private static void remove(UserSession session) {
+        sessionsByToken.remove(session.token, session);
+        sessionsByEmail.remove(session.emailKey, session);
+    }
+
+    public static class UserSession {
+        private final String token;
+        private final int userId;
+        private final String role;
+        private final String emailKey;
+        // HMAC of the password that opened the session (see AuthService)
+        private final byte[] credentialMac;
+        // Slid forward on each lookup; a racing lookup can only move it by milliseconds
+        private volatile long expiresAtMillis;
+
+        private UserSession(String token, int userId, String role, String emailKey, byte[] credentialMac,
+                            long expiresAtMillis) {
+            this.token = token;
+            this.userId = userId;
+            this.role = role;
+            this.emailKey = emailKey;
+            this.credentialMac = credentialMac;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public int getUserId() { return userId; }
+        public String getRole() { return role; }
+
+        byte[] getCredentialMac() { return credentialMac; }
+
+        public boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAtMillis;
+        }
+    }
+}
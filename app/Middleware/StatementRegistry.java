@@ -0,0 +1,111 @@
+// StatementRegistry.java
+package com.lude.app.Middleware;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.lude.app.Metrics.LatencyHistogram;
+import com.lude.app.Metrics.MetricsRegistry;
+
+// One place for every SQL statement the app runs, each with a name and its own
+// execution count and latency histogram, published in MetricsRegistry as sql.<name>
+// (latency) and sql.<name>.errors (counter), so they appear in the metrics dump.
+//
+// Statements are declared once as constants (StatementRegistry.register) and prepared
+// through SqlStatement.prepare. The JDBC URL turns on the driver's per-connection
+// statement cache with server-side prepares, and pooled connections live for a long time,
+// so after the first use on a connection, preparing the same SQL is a cache lookup
+// instead of a server round trip. Keeping the SQL text identical per statement is what
+// makes those cache hits possible.
+public class StatementRegistry {
+
+    private static final ConcurrentMap<String, SqlStatement> statements = new ConcurrentHashMap<>();
+
+    private StatementRegistry() {
+    }
+
+    // Declare a statement; registering the same name with different SQL is a programming error
+    public static SqlStatement register(String name, String sql) {
+        SqlStatement statement = statements.computeIfAbsent(name, n -> new SqlStatement(n, sql));
+        if (!statement.sql.equals(sql)) {
+            throw new IllegalStateException("Statement " + name + " is already registered with different SQL");
+        }
+        return statement;
+    }
+
+    public static class SqlStatement {
+        private final String name;
+        private final String sql;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder errors;
+
+        private SqlStatement(String name, String sql) {
+            this.name = name;
+            this.sql = sql;
+            MetricsRegistry.register("sql." + name, histogram);
+            this.errors = MetricsRegistry.counter("sql." + name + ".errors");
+        }
+
+        public PreparedStatement prepare(Connection conn) throws SQLException {
+            return timed(conn.prepareStatement(sql));
+        }
+
+        public PreparedStatement prepare(Connection conn, int autoGeneratedKeys) throws SQLException {
+            return timed(conn.prepareStatement(sql, autoGeneratedKeys));
+        }
+
+        // For statements whose text varies (e.g. the number of rows in a multi-row INSERT);
+        // timings are still recorded under this statement's name
+        public PreparedStatement prepareVariant(Connection conn, String variantSql) throws SQLException {
+            return timed(conn.prepareStatement(variantSql));
+        }
+
+        public PreparedStatement prepareVariant(Connection conn, String variantSql, int autoGeneratedKeys) throws SQLException {
+            return timed(conn.prepareStatement(variantSql, autoGeneratedKeys));
+        }
+
+        private PreparedStatement timed(PreparedStatement statement) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new TimingHandler(statement, this));
+        }
+    }
+
+    // Times execute* calls (server work plus the first fetch); everything else passes through
+    private static final class TimingHandler implements InvocationHandler {
+        private final PreparedStatement target;
+        private final SqlStatement statement;
+
+        private TimingHandler(PreparedStatement target, SqlStatement statement) {
+            this.target = target;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            boolean execute = method.getName().startsWith("execute");
+            long start = execute ? System.nanoTime() : 0;
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                if (execute) {
+                    statement.errors.increment();
+                }
+                throw e.getCause();
+            } finally {
+                if (execute) {
+                    statement.histogram.record(System.nanoTime() - start);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+// Money.java
+package com.lude.app.Pricing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+// Exact money arithmetic in long minor units (cents) with a currency code.
+//
+// Hot paths (cart totals, order lines) use the static long methods directly, which
+// never allocate. The Money value type is for APIs that need to carry the currency.
+// Overflow throws ArithmeticException instead of wrapping.
+public final class Money implements Comparable<Money> {
+
+    public static final String DEFAULT_CURRENCY = "USD";
+    // Basis points: 1000 bp = 10%
+    public static final int BASIS_POINTS_PER_UNIT = 10_000;
+    public static final int DEFAULT_TAX_BASIS_POINTS = 1_000;
+
+    private static final int MINOR_PER_MAJOR = 100;
+
+    private final long minorUnits;
+    private final String currencyCode;
+
+    private Money(long minorUnits, String currencyCode) {
+        this.minorUnits = minorUnits;
+        this.currencyCode = currencyCode;
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return new Money(minorUnits, DEFAULT_CURRENCY);
+    }
+
+    public static Money ofMinor(long minorUnits, String currencyCode) {
+        return new Money(minorUnits, Objects.requireNonNull(currencyCode));
+    }
+
+    // --- allocation-free operations on minor units ---
+
+    // Convert a decimal amount in the default currency (e.g. a product price stored as double) to cents, rounding half up
+    public static long toMinor(double amount) {
+        return Math.round(amount * MINOR_PER_MAJOR);
+    }
+
+    public static double toMajor(long minorUnits) {
+        return minorUnits / (double) MINOR_PER_MAJOR;
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    public static long multiply(long minorUnits, int quantity) {
+        return Math.multiplyExact(minorUnits, quantity);
+    }
+
+    // minorUnits * basisPoints / 10000, rounded half up (away from zero)
+    public static long percentage(long minorUnits, int basisPoints) {
+        long product = Math.multiplyExact(minorUnits, basisPoints);
+        long half = BASIS_POINTS_PER_UNIT / 2;
+        return product >= 0
+                ? (product + half) / BASIS_POINTS_PER_UNIT
+                : -((-product + half) / BASIS_POINTS_PER_UNIT);
+    }
+
+    public static long tax(long minorUnits, int taxBasisPoints) {
+        return percentage(minorUnits, taxBasisPoints);
+    }
+
+    // Subtotal plus tax, where the tax is rounded once on the subtotal
+    public static long withTax(long minorUnits, int taxBasisPoints) {
+        return add(minorUnits, tax(minorUnits, taxBasisPoints));
+    }
+
+    // Round to a multiple of increment (e.g. 5 for cash rounding), half up
+    public static long roundTo(long minorUnits, long increment) {
+        if (increment <= 0) {
+            throw new IllegalArgumentException("Rounding increment must be positive: " + increment);
+        }
+        long half = increment / 2;
+        return minorUnits >= 0
+                ? ((minorUnits + half) / increment) * increment
+                : -(((-minorUnits + half) / increment) * increment);
+    }
+
+    // For JDBC DECIMAL(p, 2) columns
+    public static BigDecimal toDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, 2);
+    }
+
+    // From a JDBC DECIMAL column, rounding half up to whole cents
+    public static long fromDecimal(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    // --- value type ---
+
+    public long getMinorUnits() { return minorUnits; }
+    public String getCurrencyCode() { return currencyCode; }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(add(minorUnits, other.minorUnits), currencyCode);
+    }
+
+    public Money times(int quantity) {
+        return new Money(multiply(minorUnits, quantity), currencyCode);
+    }
+
+    public Money withTax(int taxBasisPoints) {
+        return new Money(withTax(minorUnits, taxBasisPoints), currencyCode);
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currencyCode.equals(other.currencyCode)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currencyCode + " vs " + other.currencyCode);
+        }
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Money)) return false;
+        Money other = (Money) o;
+        return minorUnits == other.minorUnits && currencyCode.equals(other.currencyCode);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits) * 31 + currencyCode.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return MoneyFormat.forCurrency(currencyCode).format(minorUnits);
+    }
+}
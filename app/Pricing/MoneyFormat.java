@@ -0,0 +1,63 @@
+// MoneyFormat.java
+package com.lude.app.Pricing;
+
+import java.util.Currency;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Formats minor units as "$1234.56" without going through String.format/Formatter.
+// One instance per currency is cached, and each thread reuses its own StringBuilder,
+// so the only allocation per call is the resulting String.
+public final class MoneyFormat {
+
+    private static final ConcurrentMap<String, MoneyFormat> FORMATS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(24));
+
+    public static final MoneyFormat DEFAULT = forCurrency(Money.DEFAULT_CURRENCY);
+
+    private final String symbol;
+    private final int fractionDigits;
+    private final long divisor;
+
+    private MoneyFormat(String currencyCode) {
+        Currency currency = Currency.getInstance(currencyCode);
+        this.symbol = "USD".equals(currencyCode) ? "$" : currency.getSymbol();
+        this.fractionDigits = Math.max(0, currency.getDefaultFractionDigits());
+        long d = 1;
+        for (int i = 0; i < fractionDigits; i++) {
+            d *= 10;
+        }
+        this.divisor = d;
+    }
+
+    public static MoneyFormat forCurrency(String currencyCode) {
+        return FORMATS.computeIfAbsent(currencyCode, MoneyFormat::new);
+    }
+
+    // Shorthand for the default currency
+    public static String formatMinor(long minorUnits) {
+        return DEFAULT.format(minorUnits);
+    }
+
+    public String format(long minorUnits) {
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        if (minorUnits < 0) {
+            sb.append('-');
+        }
+        sb.append(symbol);
+
+        // Work in negative space so Long.MIN_VALUE doesn't overflow
+        long negative = minorUnits > 0 ? -minorUnits : minorUnits;
+        sb.append(-(negative / divisor));
+        if (fractionDigits > 0) {
+            sb.append('.');
+            long fraction = -(negative % divisor);
+            for (long d = divisor / 10; d > 1 && fraction < d; d /= 10) {
+                sb.append('0');
+            }
+            sb.append(fraction);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,159 @@
+package com.lude.app;
+
+import com.lude.app.Metrics.MetricsRegistry;
+import javafx.collections.ObservableList;
+import javafx.scene.Node;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.VBox;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+// Keeps one product card per product id and patches a container's children
+// instead of clearing and rebuilding every card on each refresh.
+// Cards that render() takes out of a container are kept as spares and rebound to the next
+// new product, so containers that keep changing (VirtualProductGrid rows) stop creating cards
+// once enough exist. Only cards currently in a container stay keyed by product id.
+// Cards keep their current product in getUserData(), so event handlers should read it from there.
+public class ProductCardCache {
+
+    public interface CardFactory {
+        VBox createCard(AdminDashboard.Product product);
+    }
+
+    public interface CardUpdater {
+        void updateCard(VBox card, AdminDashboard.Product product);
+    }
+
+    private final CardFactory factory;
+    private final CardUpdater updater;
+    private final Map<Integer, VBox> cards = new HashMap<>();
+    // What each card currently shows, to detect in-place edits
+    private final Map<Integer, RenderedState> rendered = new HashMap<>();
+    // Detached cards waiting to be rebound
+    private final Deque<VBox> spare = new ArrayDeque<>();
+
+    // Shared by every cache (one per grid)
+    private static final LongAdder CREATED = MetricsRegistry.counter("ui.cards.created");
+    private static final LongAdder UPDATED = MetricsRegistry.counter("ui.cards.updated");
+    private static final LongAdder MUTATIONS = MetricsRegistry.counter("ui.cards.childMutations");
+
+    public ProductCardCache(CardFactory factory, CardUpdater updater) {
+        this.factory = factory;
+        this.updater = updater;
+    }
+
+    // Show exactly the given products, in order, reusing existing cards
+    public void render(Pane container, List<AdminDashboard.Product> visible) {
+        List<Node> target = new ArrayList<>(visible.size());
+        for (AdminDashboard.Product product : visible) {
+            target.add(cardFor(product));
+        }
+        patchChildren(container.getChildren(), target);
+    }
+
+    // Get (creating or updating as needed) the card for a product
+    public VBox cardFor(AdminDashboard.Product product) {
+        VBox card = cards.get(product.getId());
+        RenderedState state = rendered.get(product.getId());
+        if (card == null) {
+            card = spare.poll();
+            if (card == null) {
+                card = factory.createCard(product);
+                CREATED.increment();
+            } else {
+                updater.updateCard(card, product);
+                UPDATED.increment();
+            }
+            card.setUserData(product);
+            cards.put(product.getId(), card);
+            rendered.put(product.getId(), new RenderedState(product));
+        } else {
+            card.setUserData(product);
+            if (!state.matches(product)) {
+                updater.updateCard(card, product);
+                rendered.put(product.getId(), new RenderedState(product));
+                UPDATED.increment();
+            }
+        }
+        return card;
+    }
+
+    // Turn children into target with few list mutations: remove nodes that are gone,
+    // then walk both lists and insert/move only where they differ
+    private void patchChildren(ObservableList<Node> children, List<Node> target) {
+        if (children.equals(target)) {
+            return;
+        }
+
+        Set<Node> wanted = Collections.newSetFromMap(new IdentityHashMap<>());
+        wanted.addAll(target);
+        List<Node> removed = new ArrayList<>();
+        children.removeIf(node -> !wanted.contains(node) && removed.add(node));
+        MUTATIONS.add(removed.size());
+        for (Node node : removed) {
+            release((VBox) node);
+        }
+
+        Set<Node> present = Collections.newSetFromMap(new IdentityHashMap<>());
+        present.addAll(children);
+        for (int i = 0; i < target.size(); i++) {
+            Node node = target.get(i);
+            if (i < children.size() && children.get(i) == node) {
+                continue;
+            }
+            if (present.contains(node)) {
+                // Reordered: a node may only appear once in a parent
+                children.remove(node);
+            } else {
+                present.add(node);
+            }
+            children.add(i, node);
+            MUTATIONS.increment();
+        }
+    }
+
+    // A card left its container: unkey it (unless another card took its id) and keep it as a spare
+    private void release(VBox card) {
+        AdminDashboard.Product product = (AdminDashboard.Product) card.getUserData();
+        if (product != null && cards.get(product.getId()) == card) {
+            cards.remove(product.getId());
+            rendered.remove(product.getId());
+        }
+        spare.push(card);
+    }
+
+    // Snapshot of the fields a card displays
+    private static class RenderedState {
+        private final String name;
+        private final String description;
+        private final String category;
+        private final double price;
+        private final int stock;
+
+        private RenderedState(AdminDashboard.Product product) {
+            this.name = product.getName();
+            this.description = product.getDescription();
+            this.category = product.getCategory();
+            this.price = product.getPrice();
+            this.stock = product.getStock();
+        }
+
+        private boolean matches(AdminDashboard.Product product) {
+            return stock == product.getStock()
+                    && Double.compare(price, product.getPrice()) == 0
+                    && Objects.equals(name, product.getName())
+                    && Objects.equals(description, product.getDescription())
+                    && Objects.equals(category, product.getCategory());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.lude.app;
+
+import com.lude.app.Catalog.ProductSearchIndex;
+import javafx.application.Platform;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Runs product searches off the JavaFX Application Thread.
+// Keystrokes are debounced; each query gets a sequence number, and a search is
+// abandoned as soon as a newer query arrives. Only the newest result set is
+// handed to the consumer, on the FX thread.
+public class SearchExecutor implements AutoCloseable {
+
+    private final ProductSearchIndex index;
+    private final long debounceMillis;
+    private final Consumer<List<AdminDashboard.Product>> onResults;
+
+    private final ScheduledExecutorService debouncer;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong latestQuery = new AtomicLong();
+    private ScheduledFuture<?> pending;
+
+    public SearchExecutor(ProductSearchIndex index, long debounceMillis,
+                          Consumer<List<AdminDashboard.Product>> onResults) {
+        this.index = index;
+        this.debounceMillis = debounceMillis;
+        this.onResults = onResults;
+        this.debouncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "search-debouncer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Schedule a search; supersedes any query that hasn't published yet
+    public synchronized void submit(String query) {
+        long sequence = latestQuery.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = debouncer.schedule(() -> workers.execute(() -> run(sequence, query)),
+                debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Drop any pending or running search without publishing it
+    public synchronized void cancel() {
+        latestQuery.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    private void run(long sequence, String query) {
+        if (isStale(sequence)) {
+            return;
+        }
+        int[] ids = index.searchIds(query, Integer.MAX_VALUE, () -> isStale(sequence));
+        if (ids == null || isStale(sequence)) {
+            return;
+        }
+        Platform.runLater(() -> {
+            // A newer keystroke may have arrived while this was queued. The ids become
+            // products here, on the thread that owns the product list.
+            if (!isStale(sequence)) {
+                onResults.accept(index.resolve(ids));
+            }
+        });
+    }
+
+    private boolean isStale(long sequence) {
+        return sequence != latestQuery.get();
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        debouncer.shutdownNow();
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,160 @@
+package com.lude.app;
+
+import javafx.geometry.Insets;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.HBox;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Virtualized product grid. Products are split into rows of as many cards as fit the
+// width, and the rows are shown in a ListView, which only creates cells for the rows
+// in the viewport and recycles them while scrolling. Cards come from a ProductCardCache
+// shared by all cells: a product keeps its card while it stays on screen (even if it
+// moves to another row), a card is relabelled only when its product's displayed fields
+// changed, and cards that scroll out are rebound to the rows scrolling in. The number of
+// live cards stays proportional to the visible area, not the catalog.
+// Cards keep their current product in getUserData(), so event handlers should read it from there.
+public final class VirtualProductGrid extends ListView<List<AdminDashboard.Product>> {
+
+    // Room for the vertical scroll bar and cell padding
+    private static final double WIDTH_ALLOWANCE = 30;
+    // Fire onNearEnd when a row this close to the end is shown
+    private static final int NEAR_END_ROWS = 3;
+
+    private final ProductCardCache cards;
+    private final double cardWidth;
+    private final double gap;
+
+    private List<AdminDashboard.Product> products = new ArrayList<>();
+    private int columns = 1;
+    private Runnable onNearEnd;
+
+    public VirtualProductGrid(ProductCardCache.CardFactory factory, ProductCardCache.CardUpdater updater,
+                              double cardWidth, double gap) {
+        this.cards = new ProductCardCache(factory, updater);
+        this.cardWidth = cardWidth;
+        this.gap = gap;
+
+        setCellFactory(list -> new RowCell());
+        setFocusTraversable(false);
+        setStyle("-fx-background-color: transparent; -fx-background-insets: 0; -fx-padding: 0;");
+
+        widthProperty().addListener((obs, oldVal, newVal) -> {
+            int fit = columnsFor(newVal.doubleValue());
+            if (fit != columns) {
+                columns = fit;
+                rebuildRows();
+            }
+        });
+    }
+
+    // Show exactly these products, in order. The list is used as it is, not copied, so a
+    // ProductStoreList only creates products for the rows on screen; after changing the
+    // list, call this again.
+    public void setProducts(List<AdminDashboard.Product> products) {
+        this.products = products;
+        rebuildRows();
+    }
+
+    // Add products after the current ones (next page); cards already showing are kept
+    public void appendProducts(List<AdminDashboard.Product> more) {
+        if (more.isEmpty()) {
+            return;
+        }
+        // A new list; the current one may belong to the caller
+        List<AdminDashboard.Product> grown = new ArrayList<>(products.size() + more.size());
+        grown.addAll(products);
+        grown.addAll(more);
+        products = grown;
+        rebuildRows();
+    }
+
+    // Called when one of the last rows becomes visible, e.g. to load the next page
+    public void setOnNearEnd(Runnable onNearEnd) {
+        this.onNearEnd = onNearEnd;
+    }
+
+    public int getProductCount() {
+        return products.size();
+    }
+
+    private int columnsFor(double width) {
+        return Math.max(1, (int) ((width - WIDTH_ALLOWANCE + gap) / (cardWidth + gap)));
+    }
+
+    private void rebuildRows() {
+        List<List<AdminDashboard.Product>> rows = new ArrayList<>((products.size() + columns - 1) / columns);
+        for (int from = 0; from < products.size(); from += columns) {
+            rows.add(new Row(products, from, Math.min(from + columns, products.size())));
+        }
+        getItems().setAll(rows);
+    }
+
+    // Index range of the product list. Unlike subList() it doesn't fail once the caller has
+    // changed the list; the rows are rebuilt on the next setProducts().
+    private static final class Row extends AbstractList<AdminDashboard.Product> implements RandomAccess {
+        private final List<AdminDashboard.Product> products;
+        private final int from;
+        private final int to;
+
+        private Row(List<AdminDashboard.Product> products, int from, int to) {
+            this.products = products;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public AdminDashboard.Product get(int index) {
+            return products.get(from + index);
+        }
+
+        @Override
+        public int size() {
+            return Math.max(0, Math.min(to, products.size()) - from);
+        }
+
+        // By identity, so a cell re-renders even when its products are the same objects
+        // with new values (a ProductStoreList hands out the same view after set())
+        @Override
+        public boolean equals(Object o) {
+            return this == o;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+
+    // One row of cards, patched through the shared cache
+    private class RowCell extends ListCell<List<AdminDashboard.Product>> {
+        private final HBox row = new HBox(gap);
+
+        private RowCell() {
+            row.setPadding(new Insets(0, 0, gap, 0));
+            setStyle("-fx-background-color: transparent; -fx-padding: 0 10 0 10;");
+        }
+
+        @Override
+        protected void updateItem(List<AdminDashboard.Product> rowProducts, boolean empty) {
+            super.updateItem(rowProducts, empty);
+            if (empty || rowProducts == null) {
+                // Hand this row's cards back for reuse
+                cards.render(row, List.of());
+                setGraphic(null);
+                return;
+            }
+
+            cards.render(row, rowProducts);
+            setGraphic(row);
+
+            if (onNearEnd != null && getIndex() >= getListView().getItems().size() - NEAR_END_ROWS) {
+                onNearEnd.run();
+            }
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package com.lude.app;
 
-import com.lude.app.Middleware.Middleware;
+import com.lude.app.Middleware.MiddlewareAsync;
 import javafx.animation.FadeTransition;
 import javafx.animation.TranslateTransition;
 import javafx.application.Application;
@@ -504,26 +504,32 @@ public class register extends Application {
                 return;
             }
 
-            // Register user
-            boolean success = Middleware.registerUser(firstName, lastName, email, password, dob);
-
-            if (success) {
-                showAlert(Alert.AlertType.INFORMATION, "Success", "Registration successful! You can now login.");
-
-                // Close registration window and open login
-                Stage currentStage = (Stage) registerButton.getScene().getWindow();
-                currentStage.close();
-
-                // Launch login screen
-                Main loginPage = new Main();
-                try {
-                    loginPage.start(new Stage());
-                } catch (Exception e) {
-                    e.printStackTrace();
+            // Register user (off the FX thread; the button stays disabled until it answers)
+            registerButton.setDisable(true);
+            MiddlewareAsync.registerUser(firstName, lastName, email, password, dob).whenCompleteAsync((success, error) -> {
+                registerButton.setDisable(false);
+                if (error != null) {
+                    showAlert(Alert.AlertType.ERROR, "Registration Failed", MiddlewareAsync.isTimeout(error)
+                            ? "The server took too long to respond. Please try again."
+                            : "Could not reach the server: " + MiddlewareAsync.rootCause(error).getMessage());
+                } else if (success) {
+                    showAlert(Alert.AlertType.INFORMATION, "Success", "Registration successful! You can now login.");
+
+                    // Close registration window and open login
+                    Stage currentStage = (Stage) registerButton.getScene().getWindow();
+                    currentStage.close();
+
+                    // Launch login screen
+                    Main loginPage = new Main();
+                    try {
+                        loginPage.start(new Stage());
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                } else {
+                    showAlert(Alert.AlertType.ERROR, "Registration Failed", "Email may already be in use.");
                 }
-            } else {
-                showAlert(Alert.AlertType.ERROR, "Registration Failed", "Email may already be in use.");
-            }
+            }, MiddlewareAsync.FX_THREAD);
         });
     }
 
@@ -0,0 +1,57 @@
+// BenchmarkData.java
+package com.lude.app.Benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import com.lude.app.AdminDashboard;
+
+// Deterministic synthetic catalogs, so every run and every fork measures the same data
+final class BenchmarkData {
+
+    static final String[] CATEGORIES = {
+            "Electronics", "Clothing", "Home & Kitchen", "Books", "Toys & Games", "Sports", "Beauty", "Garden"
+    };
+    private static final String[] ADJECTIVES = {
+            "Wireless", "Smart", "Portable", "Classic", "Premium", "Compact", "Stainless", "Organic",
+            "Ultra", "Vintage", "Ergonomic", "Waterproof", "Slim", "Deluxe", "Foldable", "Rechargeable"
+    };
+    private static final String[] NOUNS = {
+            "Headphones", "Laptop", "Watch", "Jacket", "Kettle", "Novel", "Puzzle", "Backpack",
+            "Lamp", "Speaker", "Blender", "Sneakers", "Camera", "Mug", "Drone", "Keyboard"
+    };
+    private static final String[] DESCRIPTION_WORDS = {
+            "durable", "lightweight", "steel", "cotton", "battery", "hours", "warranty", "gift",
+            "edition", "design", "quality", "everyday", "travel", "kitchen", "outdoor", "family"
+    };
+
+    private BenchmarkData() {
+    }
+
+    static List<AdminDashboard.Product> products(int count) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<AdminDashboard.Product> products = new ArrayList<>(count);
+        StringBuilder description = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            AdminDashboard.Product product = new AdminDashboard.Product();
+            product.setId(i);
+            product.setName(pick(random, ADJECTIVES) + " " + pick(random, NOUNS) + " " + (i % 97));
+            product.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            // Whole cents, like real prices
+            product.setPrice((100 + random.nextInt(200_000)) / 100.0);
+            product.setStock(random.nextInt(500));
+            description.setLength(0);
+            for (int w = 0; w < 12; w++) {
+                description.append(w > 0 ? " " : "").append(pick(random, DESCRIPTION_WORDS));
+            }
+            product.setDescription(description.toString());
+            products.add(product);
+        }
+        return products;
+    }
+
+    private static String pick(SplittableRandom random, String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+}
@@ -0,0 +1,37 @@
+// BenchmarkRunner.java
+package com.lude.app.Benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs the benchmarks and writes JMH's JSON results to a timestamped file, so runs can be
+// compared over time.
+//   args: [benchmark regex, default all] [results directory, default "benchmarks/results",
+//          relative to the working directory, i.e. the repository root]
+// The regular JMH launcher (org.openjdk.jmh.Main -rf json ...) works as well.
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        String include = args.length > 0 ? args[0] : BenchmarkRunner.class.getPackageName() + ".*Benchmark";
+        Path resultsDir = Paths.get(args.length > 1 ? args[1] : "benchmarks/results");
+        Files.createDirectories(resultsDir);
+        Path resultFile = resultsDir.resolve("jmh-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile.toString())
+                .build();
+        new Runner(options).run();
+        System.out.println("Results written to " + resultFile.toAbsolutePath());
+    }
+}
@@ -0,0 +1,76 @@
+// CatalogFileBenchmark.java
+package com.lude.app.Benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lude.app.AdminDashboard;
+import com.lude.app.Catalog.CatalogFile;
+
+// products.dat save and load (AdminDashboard.saveProducts / loadProducts) by catalog size
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class CatalogFileBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int catalogSize;
+
+    private List<AdminDashboard.Product> products;
+    private Path directory;
+    private Path writeTarget;
+    private Path readSource;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        products = BenchmarkData.products(catalogSize);
+        directory = Files.createTempDirectory("nepshop-catalog-bench");
+        writeTarget = directory.resolve("write.dat");
+        readSource = directory.resolve("read.dat");
+        CatalogFile.write(readSource, products);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(writeTarget);
+        Files.deleteIfExists(readSource);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        CatalogFile.write(writeTarget, products);
+        return Files.size(writeTarget);
+    }
+
+    @Benchmark
+    public List<AdminDashboard.Product> read() throws IOException {
+        return CatalogFile.read(readSource);
+    }
+
+    @Benchmark
+    public List<AdminDashboard.Product> roundTrip() throws IOException {
+        CatalogFile.write(writeTarget, products);
+        return CatalogFile.read(writeTarget);
+    }
+}
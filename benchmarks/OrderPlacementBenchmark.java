@@ -0,0 +1,106 @@
+// OrderPlacementBenchmark.java
+package com.lude.app.Benchmarks;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lude.app.AdminDashboard;
+import com.lude.app.BackEnd.BackEnd;
+import com.lude.app.CustomerDashboard;
+import com.lude.app.Middleware.OrderEngine;
+
+// Middleware.placeOrder (OrderEngine) end to end, against an in-memory H2 database in
+// MySQL mode instead of a server: measures the statement batching and transaction work,
+// not network latency. BackEnd reads the JDBC URL when the fork starts.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {
+        "-Dnepshop.db.url=jdbc:h2:mem:nepshop_bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "-Dnepshop.db.user=sa",
+        "-Dnepshop.db.password="
+})
+public class OrderPlacementBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+    // Enough that no run can sell out
+    private static final int STOCK = 1_000_000_000;
+
+    @Param({"1", "10", "100", "1000"})
+    public int cartSize;
+
+    private List<CustomerDashboard.ShoppingCart.CartItem> cartItems;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        List<AdminDashboard.Product> products = BenchmarkData.products(CATALOG_SIZE);
+        try (Connection conn = BackEnd.getConnection(); Statement ddl = conn.createStatement()) {
+            ddl.execute("DROP TABLE IF EXISTS order_items");
+            ddl.execute("DROP TABLE IF EXISTS customer_orders");
+            ddl.execute("DROP TABLE IF EXISTS products");
+            ddl.execute("CREATE TABLE products (id INT PRIMARY KEY, name VARCHAR(255), category VARCHAR(100), "
+                    + "price DECIMAL(12,2), stock INT, description TEXT)");
+            ddl.execute("CREATE TABLE customer_orders (order_id INT AUTO_INCREMENT PRIMARY KEY, user_id INT, "
+                    + "item_count INT, total_price DECIMAL(12,2), created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            ddl.execute("CREATE TABLE order_items (order_id INT, product_id INT, product_name VARCHAR(255), "
+                    + "quantity INT, unit_price DECIMAL(12,2), line_total DECIMAL(12,2))");
+
+            conn.setAutoCommit(false);
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO products (id, name, category, price, stock, description) VALUES (?, ?, ?, ?, ?, ?)")) {
+                for (AdminDashboard.Product product : products) {
+                    insert.setInt(1, product.getId());
+                    insert.setString(2, product.getName());
+                    insert.setString(3, product.getCategory());
+                    insert.setDouble(4, product.getPrice());
+                    insert.setInt(5, STOCK);
+                    insert.setString(6, product.getDescription());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            conn.commit();
+        }
+
+        cartItems = new ArrayList<>(cartSize);
+        for (int i = 0; i < cartSize; i++) {
+            // Spread over the catalog, as a real order would be
+            cartItems.add(new CustomerDashboard.ShoppingCart.CartItem(products.get(i * (CATALOG_SIZE / cartSize)), 1));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BackEnd.shutdownPool();
+    }
+
+    @Benchmark
+    public int placeOrder() {
+        OrderEngine.OrderResult result = OrderEngine.placeOrder(1, cartItems);
+        if (!result.isSuccess()) {
+            throw new IllegalStateException("Order failed: " + result.getMessage());
+        }
+        return result.getOrderId();
+    }
+}
@@ -0,0 +1,62 @@
+// SearchBenchmark.java
+package com.lude.app.Benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lude.app.AdminDashboard;
+import com.lude.app.Catalog.CategoryFacetIndex;
+import com.lude.app.Catalog.ProductSearchIndex;
+
+// Throughput of the indexes behind filterProducts (text search) and filterProductsByCategory
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class SearchBenchmark {
+
+    // Dashboards show at most this many results
+    private static final int RESULT_LIMIT = 200;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int catalogSize;
+
+    // Prefix, multi-token, and a token that matches nothing
+    @Param({"lap", "wireless head", "stainless steel warranty", "zzz"})
+    public String query;
+
+    private ProductSearchIndex searchIndex;
+    private CategoryFacetIndex categoryIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<AdminDashboard.Product> products = BenchmarkData.products(catalogSize);
+        searchIndex = new ProductSearchIndex(products);
+        categoryIndex = new CategoryFacetIndex(products);
+    }
+
+    @Benchmark
+    public List<AdminDashboard.Product> search() {
+        return searchIndex.search(query, RESULT_LIMIT);
+    }
+
+    @Benchmark
+    public List<AdminDashboard.Product> filterByCategory() {
+        return categoryIndex.filter(BenchmarkData.CATEGORIES[0]);
+    }
+}
@@ -0,0 +1,86 @@
+// ShoppingCartBenchmark.java
+package com.lude.app.Benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lude.app.AdminDashboard;
+import com.lude.app.CustomerDashboard;
+
+// ShoppingCart mutations and totals by cart size. Each mutation benchmark leaves the cart
+// as it found it, so the size stays fixed for the whole run.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShoppingCartBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int cartSize;
+
+    private CustomerDashboard.ShoppingCart cart;
+    private AdminDashboard.Product[] inCart;
+    private AdminDashboard.Product notInCart;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<AdminDashboard.Product> products = BenchmarkData.products(cartSize + 1);
+        cart = new CustomerDashboard.ShoppingCart();
+        inCart = new AdminDashboard.Product[cartSize];
+        for (int i = 0; i < cartSize; i++) {
+            inCart[i] = products.get(i);
+            cart.addItem(inCart[i]);
+        }
+        notInCart = products.get(cartSize);
+    }
+
+    // New line appended, then removed again
+    @Benchmark
+    public int addAndRemoveLine() {
+        cart.addItem(notInCart);
+        cart.removeItem(notInCart);
+        return cart.getItemCount();
+    }
+
+    // +1 then -1 on lines spread over the whole cart
+    @Benchmark
+    public int changeQuantity() {
+        AdminDashboard.Product product = inCart[next];
+        next = next + 1 == inCart.length ? 0 : next + 1;
+        cart.increaseQuantity(product);
+        cart.decreaseQuantity(product);
+        return cart.getTotalQuantity();
+    }
+
+    // Maintained incrementally by the cart
+    @Benchmark
+    public long subtotal() {
+        return cart.getSubtotalCents();
+    }
+
+    // Baseline: what the subtotal costs when summed over the lines
+    @Benchmark
+    public long subtotalBySummingLines() {
+        long total = 0;
+        for (CustomerDashboard.ShoppingCart.CartItem item : cart.getItems()) {
+            total += item.getLineTotalCents();
+        }
+        return total;
+    }
+}